@@ -0,0 +1,37 @@
+// k6 load test of /api/account
+//
+// k6 run -e BASE_URL=http://localhost:9090 -e SESSION=<JSESSIONID> load-test/account.js
+//
+// Run it once with the default profile and once with SPRING_PROFILES_ACTIVE=prod and compare
+// the http_req_duration percentiles and the hikaricp.connections.pending/usage metrics (/api/management/metrics).
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9090';
+
+export const options = {
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 10,
+            stages: [
+                { duration: '1m', target: 100 },
+                { duration: '1m', target: 400 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(95)<500'],
+    },
+};
+
+export default function () {
+    const response = http.get(`${BASE_URL}/api/account`, {
+        cookies: { JSESSIONID: __ENV.SESSION },
+    });
+
+    check(response, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,40 @@
+// k6 load test of /api/suggested-playlist
+//
+// k6 run -e BASE_URL=http://localhost:9090 -e SESSION=<JSESSIONID> load-test/suggested-playlist.js
+//
+// Run it once against each thread configuration (PLUGTIFY_VIRTUAL_THREADS=false|true) and compare
+// the highest number of virtual users served without errors and the http_req_duration percentiles.
+// The suggestions are computed at each request (fresh=true), -e FRESH=false measures the cached suggestions.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9090';
+const FRESH = __ENV.FRESH || 'true';
+
+export const options = {
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 10,
+            stages: [
+                { duration: '1m', target: 100 },
+                { duration: '1m', target: 400 },
+                { duration: '1m', target: 1000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(95)<5000'],
+    },
+};
+
+export default function () {
+    const response = http.get(`${BASE_URL}/api/suggested-playlist?fresh=${FRESH}`, {
+        cookies: { JSESSIONID: __ENV.SESSION },
+    });
+
+    check(response, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,147 @@
+package com.edtech.plugtify.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the MySQL driver defaults with the driver properties of the prod profile (application-prod.yaml)
+ * on the statements of /api/account (user and token lookup) and of the token saves of the refresh job.
+ * It needs the database of the application: PLUGTIFY_DB_HOST, PLUGTIFY_DB_PORT and PLUGTIFY_DB_PASSWORD,
+ * the rows inserted in tbl_token are deleted at the end.
+ * run with: ./gradlew jmh
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatasourceTuningBenchmark {
+
+    private static final int TOKENS = 100;
+
+    private static final String ACCOUNT_QUERY =
+            "select u.id, u.login, u.has_token, t.id, t.access_token, t.expires_in, t.last_update_time " +
+            "from tbl_user u left join tbl_token t on t.id = u.token_id where u.login = ?";
+
+    private static final String TOKEN_UPDATE =
+            "update tbl_token set access_token = ?, token_type = ?, scope = ?, expires_in = ?, refresh_token = ?, " +
+            "last_update_time = ? where id = ?";
+
+    @Param({"default", "tuned"})
+    private String driverProperties;
+
+    private Connection connection;
+    private long[] tokenIds = new long[TOKENS];
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String host = System.getenv("PLUGTIFY_DB_HOST");
+
+        if(host == null) {
+            throw new IllegalStateException("PLUGTIFY_DB_HOST is not set");
+        }
+
+        String url = "jdbc:mysql://" + host + ":" + System.getenv("PLUGTIFY_DB_PORT") +
+                "/plugtify?useUnicode=true&characterEncoding=UTF-8&useLegacyDatetimeCode=false&serverTimezone=UTC";
+
+        Properties properties = new Properties();
+        properties.setProperty("user", "root");
+        properties.setProperty("password", System.getenv("PLUGTIFY_DB_PASSWORD"));
+
+        if("tuned".equals(this.driverProperties)) {
+            properties.setProperty("useServerPrepStmts", "true");
+            properties.setProperty("cachePrepStmts", "true");
+            properties.setProperty("prepStmtCacheSize", "250");
+            properties.setProperty("prepStmtCacheSqlLimit", "2048");
+            properties.setProperty("useLocalSessionState", "true");
+            properties.setProperty("rewriteBatchedStatements", "true");
+        }
+
+        this.connection = DriverManager.getConnection(url, properties);
+
+        try (PreparedStatement statement = this.connection.prepareStatement(
+                "insert into tbl_token(access_token, last_update_time) values (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < TOKENS; i++) {
+                statement.setString(1, "benchmark");
+                statement.setTimestamp(2, Timestamp.from(Instant.now()));
+                statement.executeUpdate();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    this.tokenIds[i] = keys.getLong(1);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (PreparedStatement statement = this.connection.prepareStatement("delete from tbl_token where id = ?")) {
+            for (long tokenId : this.tokenIds) {
+                statement.setLong(1, tokenId);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+
+        this.connection.close();
+    }
+
+    /**
+     * the statement is prepared on each call, as a pooled connection of the application does it
+     */
+    @Benchmark
+    public boolean accountLookup() throws SQLException {
+        try (PreparedStatement statement = this.connection.prepareStatement(ACCOUNT_QUERY)) {
+            statement.setString(1, "benchmark");
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * one update per token, as the refresh job saves them now
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public void tokenSaves() throws SQLException {
+        for (long tokenId : this.tokenIds) {
+            try (PreparedStatement statement = this.connection.prepareStatement(TOKEN_UPDATE)) {
+                this.setToken(statement, tokenId);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * the same updates in one JDBC batch
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public int[] tokenSavesBatched() throws SQLException {
+        try (PreparedStatement statement = this.connection.prepareStatement(TOKEN_UPDATE)) {
+            for (long tokenId : this.tokenIds) {
+                this.setToken(statement, tokenId);
+                statement.addBatch();
+            }
+
+            return statement.executeBatch();
+        }
+    }
+
+    private void setToken(PreparedStatement statement, long tokenId) throws SQLException {
+        statement.setString(1, "access-token-" + tokenId);
+        statement.setString(2, "Bearer");
+        statement.setString(3, "user-read-recently-played");
+        statement.setInt(4, 3600);
+        statement.setString(5, "refresh-token-" + tokenId);
+        statement.setTimestamp(6, Timestamp.from(Instant.now()));
+        statement.setLong(7, tokenId);
+    }
+}
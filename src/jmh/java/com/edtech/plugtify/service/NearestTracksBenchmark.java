@@ -0,0 +1,90 @@
+package com.edtech.plugtify.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the exact nearest tracks search (TrackFeatureIndex scan) with the approximate one (HnswIndex).
+ * The recall@50 of the HnswIndex against the exact search is printed in the setup.
+ * run with: ./gradlew jmh
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearestTracksBenchmark {
+
+    private static final int K = 50;
+    private static final int QUERIES = 100;
+
+    @Param({"100000", "500000"})
+    private int tracksCount;
+
+    @Param({"64", "128"})
+    private int efSearch;
+
+    private TrackFeatureIndex trackFeatureIndex;
+    private HnswIndex hnswIndex;
+    private float[][] queries;
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+
+        this.trackFeatureIndex = new TrackFeatureIndex();
+        this.hnswIndex = new HnswIndex(TrackFeatureIndex.DIMENSIONS, 16, 100);
+
+        for (int i = 0; i < this.tracksCount; i++) {
+            float[] features = this.randomFeatures(random);
+
+            this.trackFeatureIndex.put("track" + i, features, 0);
+            this.hnswIndex.insert("track" + i, TrackFeatureIndex.vector(features), 0);
+        }
+
+        this.queries = new float[QUERIES][];
+
+        for (int i = 0; i < QUERIES; i++) {
+            this.queries[i] = this.randomFeatures(random);
+        }
+
+        double recall = 0;
+
+        for (float[] query : this.queries) {
+            Set<String> exact = new HashSet<>(this.trackFeatureIndex.nearest(query, 0, K, Set.of()));
+            List<String> approximate = this.hnswIndex.search(TrackFeatureIndex.vector(query), K, this.efSearch, 0, Set.of());
+
+            recall += approximate.stream().filter(exact::contains).count() / (double) K;
+        }
+
+        System.out.printf("%n%d tracks, efSearch %d: recall@%d = %.3f%n", this.tracksCount, this.efSearch, K, recall / QUERIES);
+    }
+
+    @Benchmark
+    public List<String> exactSearch() {
+        return this.trackFeatureIndex.nearest(this.nextQuery(), 0, K, Set.of());
+    }
+
+    @Benchmark
+    public List<String> hnswSearch() {
+        return this.hnswIndex.search(TrackFeatureIndex.vector(this.nextQuery()), K, this.efSearch, 0, Set.of());
+    }
+
+    private float[] nextQuery() {
+        return this.queries[this.nextQuery++ % QUERIES];
+    }
+
+    private float[] randomFeatures(Random random) {
+        float[] features = new float[TrackFeatureIndex.DIMENSIONS];
+
+        for (int dimension = 0; dimension < TrackFeatureIndex.TEMPO; dimension++) {
+            features[dimension] = random.nextFloat();
+        }
+
+        features[TrackFeatureIndex.TEMPO] = 60 + random.nextFloat() * 140; // BPM
+
+        return features;
+    }
+}
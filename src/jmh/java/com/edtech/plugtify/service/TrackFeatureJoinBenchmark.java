@@ -0,0 +1,69 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compare the previous merge of tracks and audio features (a stream over all the features for each track)
+ * with TrackFeatureJoiner (features indexed by id once).
+ * run with: ./gradlew jmh
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackFeatureJoinBenchmark {
+
+    @Param({"50", "500", "5000"})
+    private int tracksCount;
+
+    private SpotifyTrackDTO[] tracks;
+    private SpotifyAudioFeaturesDTO[] audioFeatures;
+
+    private TrackFeatureJoiner trackFeatureJoiner = new TrackFeatureJoiner();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        this.tracks = new SpotifyTrackDTO[this.tracksCount];
+        List<SpotifyAudioFeaturesDTO> features = new ArrayList<>();
+
+        for (int i = 0; i < this.tracksCount; i++) {
+            String id = UUID.randomUUID().toString().replace("-", "").substring(0, 22);
+
+            SpotifyTrackDTO track = new SpotifyTrackDTO();
+            track.setId(id);
+            this.tracks[i] = track;
+
+            SpotifyAudioFeaturesDTO audioFeature = new SpotifyAudioFeaturesDTO();
+            audioFeature.setId(id);
+            audioFeature.setEnergy(random.nextFloat());
+            features.add(audioFeature);
+        }
+
+        // Spotify doesn't guarantee the order of the features
+        Collections.shuffle(features, random);
+        this.audioFeatures = features.toArray(SpotifyAudioFeaturesDTO[]::new);
+    }
+
+    @Benchmark
+    public SpotifyTrackDTO[] previousMerge() {
+        return Arrays.stream(this.tracks).peek(track -> {
+            SpotifyAudioFeaturesDTO audioFeatures = Arrays.stream(this.audioFeatures)
+                    .filter(trackFeature -> trackFeature.getId().equals(track.getId())).collect(Collectors.toList()).get(0);
+
+            track.setAudio_feature(audioFeatures);
+        }).toArray(SpotifyTrackDTO[]::new);
+    }
+
+    @Benchmark
+    public SpotifyTrackDTO[] trackFeatureJoiner() {
+        return this.trackFeatureJoiner.join(this.tracks, this.audioFeatures);
+    }
+}
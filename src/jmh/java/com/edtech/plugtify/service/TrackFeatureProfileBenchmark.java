@@ -0,0 +1,111 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the average of the audio features walking the track DTOs (previous getSuggestedPlaylist loop)
+ * with the TrackFeatureIndex profile (primitive arrays).
+ * run with: ./gradlew jmh
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackFeatureProfileBenchmark {
+
+    @Param({"50", "200", "1000"})
+    private int tracksCount;
+
+    // tracks in the index, the profile tracks are a part of them
+    private static final int INDEXED_TRACKS = 100000;
+
+    private SpotifyTrackDTO[] tracks;
+    private List<String> trackIds;
+
+    private TrackFeatureIndex trackFeatureIndex = new TrackFeatureIndex();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        List<String> indexedIds = new ArrayList<>();
+
+        for (int i = 0; i < INDEXED_TRACKS; i++) {
+            String id = UUID.randomUUID().toString().replace("-", "").substring(0, 22);
+            float[] features = new float[TrackFeatureIndex.DIMENSIONS];
+
+            for (int dimension = 0; dimension < TrackFeatureIndex.DIMENSIONS; dimension++) {
+                features[dimension] = random.nextFloat();
+            }
+
+            this.trackFeatureIndex.put(id, features, random.nextInt(100));
+            indexedIds.add(id);
+        }
+
+        Collections.shuffle(indexedIds, random);
+        this.trackIds = new ArrayList<>(indexedIds.subList(0, this.tracksCount));
+        this.tracks = new SpotifyTrackDTO[this.tracksCount];
+
+        for (int i = 0; i < this.tracksCount; i++) {
+            SpotifyAudioFeaturesDTO audioFeature = new SpotifyAudioFeaturesDTO();
+            audioFeature.setId(this.trackIds.get(i));
+            audioFeature.setAcousticness(random.nextFloat());
+            audioFeature.setDanceability(random.nextFloat());
+            audioFeature.setEnergy(random.nextFloat());
+            audioFeature.setInstrumentalness(random.nextFloat());
+            audioFeature.setLiveness(random.nextFloat());
+            audioFeature.setSpeechiness(random.nextFloat());
+            audioFeature.setValence(random.nextFloat());
+
+            SpotifyTrackDTO track = new SpotifyTrackDTO();
+            track.setId(this.trackIds.get(i));
+            track.setPopularity(random.nextInt(100));
+            track.setAudio_feature(audioFeature);
+            this.tracks[i] = track;
+        }
+    }
+
+    @Benchmark
+    public float[] dtoLoop() {
+        float acousticness = 0.0f;
+        float danceability = 0.0f;
+        float energy = 0.0f;
+        float instrumentalness = 0.0f;
+        float liveness = 0.0f;
+        float speechiness = 0.0f;
+        float valence = 0.0f;
+        int popularity = 0;
+        int cantTracks = 0;
+
+        for (SpotifyTrackDTO track : this.tracks) {
+            if(track.getAudio_feature() == null) {
+                continue;
+            }
+
+            cantTracks++;
+            acousticness = acousticness + track.getAudio_feature().getAcousticness();
+            danceability = danceability + track.getAudio_feature().getDanceability();
+            energy = energy + track.getAudio_feature().getEnergy();
+            instrumentalness = instrumentalness + track.getAudio_feature().getInstrumentalness();
+            liveness = liveness + track.getAudio_feature().getLiveness();
+            speechiness = speechiness + track.getAudio_feature().getSpeechiness();
+            valence = valence + track.getAudio_feature().getValence();
+            popularity = popularity + track.getPopularity();
+        }
+
+        return new float[] {
+                acousticness / cantTracks, danceability / cantTracks, energy / cantTracks, instrumentalness / cantTracks,
+                liveness / cantTracks, speechiness / cantTracks, valence / cantTracks, (float) popularity / cantTracks
+        };
+    }
+
+    @Benchmark
+    public TrackFeatureIndex.Profile featureIndex() {
+        return this.trackFeatureIndex.profile(this.trackIds);
+    }
+}
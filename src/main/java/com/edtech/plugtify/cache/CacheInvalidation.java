@@ -0,0 +1,33 @@
+package com.edtech.plugtify.cache;
+
+import java.io.Serializable;
+
+/**
+ * Message sent to the other nodes when an entry of a two level cache changes.
+ * A null key means the whole cache was cleared.
+ */
+
+public class CacheInvalidation implements Serializable {
+
+    private String nodeId;
+    private String cacheName;
+    private Object key;
+
+    public CacheInvalidation(String nodeId, String cacheName, Object key) {
+        this.nodeId = nodeId;
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,78 @@
+package com.edtech.plugtify.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory stand-in of the shared tier.
+ * Several cache managers using the same instance behave like several nodes,
+ * so the distributed mode can be verified without external infrastructure.
+ */
+
+public class InMemorySharedCacheTier implements SharedCacheTier {
+
+    private Map<String, Map<Object, Entry>> caches = new ConcurrentHashMap<>();
+    private List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        Map<Object, Entry> cache = this.getCache(cacheName);
+        Entry entry = cache.get(key);
+
+        if(entry == null) {
+            return null;
+        }
+
+        if(entry.expiresAt.isBefore(Instant.now())) {
+            cache.remove(key, entry);
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value, Duration timeToLive) {
+        this.getCache(cacheName).put(key, new Entry(value, Instant.now().plus(timeToLive)));
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        this.getCache(cacheName).remove(key);
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        this.getCache(cacheName).clear();
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        this.listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        this.listeners.add(listener);
+    }
+
+    private Map<Object, Entry> getCache(String cacheName) {
+        return this.caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+
+    private static class Entry {
+
+        private Object value;
+        private Instant expiresAt;
+
+        private Entry(Object value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
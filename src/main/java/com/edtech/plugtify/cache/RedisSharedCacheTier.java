@@ -0,0 +1,82 @@
+package com.edtech.plugtify.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Shared tier stored in Redis.
+ * Invalidation messages are sent through Redis Pub/Sub on INVALIDATION_CHANNEL.
+ */
+
+public class RedisSharedCacheTier implements SharedCacheTier, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "plugtify:cache-invalidation";
+    private static final String KEY_PREFIX = "plugtify:cache:";
+
+    private Logger logger = LoggerFactory.getLogger(RedisSharedCacheTier.class);
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisSharedCacheTier(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        return this.redisTemplate.opsForValue().get(this.getRedisKey(cacheName, key));
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value, Duration timeToLive) {
+        this.redisTemplate.opsForValue().set(this.getRedisKey(cacheName, key), value, timeToLive);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        this.redisTemplate.delete(this.getRedisKey(cacheName, key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        Set<String> keys = this.redisTemplate.keys(KEY_PREFIX + cacheName + ":*");
+
+        if(keys != null && !keys.isEmpty()) {
+            this.redisTemplate.delete(keys);
+        }
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        this.redisTemplate.convertAndSend(INVALIDATION_CHANNEL, invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object invalidation = this.redisTemplate.getValueSerializer().deserialize(message.getBody());
+
+        if(invalidation instanceof CacheInvalidation) {
+            this.listeners.forEach(listener -> listener.accept((CacheInvalidation) invalidation));
+        } else {
+            this.logger.warn("Unknown message in {}: {}", INVALIDATION_CHANNEL, invalidation);
+        }
+    }
+
+    private String getRedisKey(String cacheName, Object key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,30 @@
+package com.edtech.plugtify.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cache tier shared by all the nodes (pods) of the application.
+ * It stores the values behind the local near-caches and carries the invalidation messages between nodes.
+ */
+
+public interface SharedCacheTier {
+
+    /**
+     * @return the stored value or null if the key is not in the tier
+     */
+    Object get(String cacheName, Object key);
+
+    void put(String cacheName, Object key, Object value, Duration timeToLive);
+
+    void evict(String cacheName, Object key);
+
+    void clear(String cacheName);
+
+    /**
+     * send an invalidation message to every node, including this one
+     */
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
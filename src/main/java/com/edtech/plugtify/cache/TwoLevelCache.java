@@ -0,0 +1,139 @@
+package com.edtech.plugtify.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache with a local near-cache (Caffeine) in front of a tier shared by all the nodes.
+ * -- reads: near-cache, then shared tier, then the value loader
+ * -- writes and evictions: near-cache and shared tier, then the other nodes drop their near-cache entry
+ */
+
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private String name;
+    private String nodeId;
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private SharedCacheTier sharedCacheTier;
+    private Duration timeToLive;
+
+    public TwoLevelCache(
+            String name,
+            String nodeId,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+            SharedCacheTier sharedCacheTier,
+            Duration timeToLive
+    ) {
+        super(true);
+        this.name = name;
+        this.nodeId = nodeId;
+        this.localCache = localCache;
+        this.sharedCacheTier = sharedCacheTier;
+        this.timeToLive = timeToLive;
+
+        this.sharedCacheTier.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getLocalCache() {
+        return this.localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = this.localCache.getIfPresent(key);
+
+        if(value == null) {
+            value = this.sharedCacheTier.get(this.name, key);
+
+            if(value != null) {
+                this.localCache.put(key, value);
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = this.get(key);
+
+        if(valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+
+        T value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        this.put(key, value);
+
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = this.toStoreValue(value);
+
+        this.localCache.put(key, storeValue);
+        this.sharedCacheTier.put(this.name, key, storeValue, this.timeToLive);
+        this.sharedCacheTier.publish(new CacheInvalidation(this.nodeId, this.name, key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existingValue = this.get(key);
+
+        if(existingValue == null) {
+            this.put(key, value);
+        }
+
+        return existingValue;
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.localCache.invalidate(key);
+        this.sharedCacheTier.evict(this.name, key);
+        this.sharedCacheTier.publish(new CacheInvalidation(this.nodeId, this.name, key));
+    }
+
+    @Override
+    public void clear() {
+        this.localCache.invalidateAll();
+        this.sharedCacheTier.clear(this.name);
+        this.sharedCacheTier.publish(new CacheInvalidation(this.nodeId, this.name, null));
+    }
+
+    /**
+     * Drop the near-cache entry changed by another node; the next read gets the value from the shared tier
+     * @param invalidation message from the shared tier
+     */
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if(this.nodeId.equals(invalidation.getNodeId()) || !this.name.equals(invalidation.getCacheName())) {
+            return;
+        }
+
+        if(invalidation.getKey() == null) {
+            this.localCache.invalidateAll();
+        } else {
+            this.localCache.invalidate(invalidation.getKey());
+        }
+    }
+}
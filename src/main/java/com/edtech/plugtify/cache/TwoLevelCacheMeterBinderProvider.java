@@ -0,0 +1,18 @@
+package com.edtech.plugtify.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * Publish the statistics of the near-cache of a TwoLevelCache as cache.* metrics
+ */
+
+public class TwoLevelCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoLevelCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        return new CaffeineCacheMetrics(cache.getLocalCache(), cache.getName(), tags);
+    }
+}
@@ -8,6 +8,10 @@ import org.springframework.context.annotation.Configuration;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 // https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html
 
 @Configuration
@@ -24,6 +28,69 @@ public class ApplicationProperties {
         return spotify;
     }
 
+    /**
+     * settings of the hourly refresh of the users playlists
+     */
+    private final PlaylistRefresh playlistRefresh = new PlaylistRefresh();
+
+    public PlaylistRefresh getPlaylistRefresh() {
+        return playlistRefresh;
+    }
+
+    /**
+     * settings of the users play history
+     */
+    private final PlayHistory playHistory = new PlayHistory();
+
+    public PlayHistory getPlayHistory() {
+        return playHistory;
+    }
+
+    /**
+     * settings of the suggested playlists
+     */
+    private final Recommendations recommendations = new Recommendations();
+
+    public Recommendations getRecommendations() {
+        return recommendations;
+    }
+
+    /**
+     * settings of the application caches
+     */
+    private final Cache cache = new Cache();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * settings of the REST resources execution
+     */
+    private final Web web = new Web();
+
+    public Web getWeb() {
+        return web;
+    }
+
+    /**
+     * run the servlet requests, Spotify calls and background processes on virtual threads
+     */
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * authentication of the API requests
+     */
+    private final Security security = new Security();
+
+    public Security getSecurity() {
+        return security;
+    }
+
     /**
      * ObjectMapper Bean configuration requiered by Zalando Problem.
      * Zalando Problem is a small library to let customize APIs errors.
@@ -42,6 +109,60 @@ public class ApplicationProperties {
         private String clientId;
         private String clientSecret;
 
+        /**
+         * settings of the pooled http client shared by every call to the Spotify API
+         */
+        private final HttpClient httpClient = new HttpClient();
+
+        public HttpClient getHttpClient() {
+            return httpClient;
+        }
+
+        /**
+         * bounded pool used to send independent Spotify requests at the same time
+         */
+        private final Executor executor = new Executor();
+
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        /**
+         * settings of the access tokens of the users
+         */
+        private final Token token = new Token();
+
+        public Token getToken() {
+            return token;
+        }
+
+        /**
+         * client side rate limit of the requests to Spotify, shared by users requests and background processes
+         */
+        private final RateLimit rateLimit = new RateLimit();
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+
+        /**
+         * bulkhead and circuit breaker of each Spotify endpoint
+         */
+        private final Resilience resilience = new Resilience();
+
+        public Resilience getResilience() {
+            return resilience;
+        }
+
+        /**
+         * coalescing of the catalog lookups (tracks, audio features) of the concurrent requests
+         */
+        private final Batch batch = new Batch();
+
+        public Batch getBatch() {
+            return batch;
+        }
+
         public String getClientId() {
             return clientId;
         }
@@ -57,6 +178,817 @@ public class ApplicationProperties {
         public void setClientSecret(String clientSecret) {
             this.clientSecret = clientSecret;
         }
+
+        public static class HttpClient {
+
+            private int maxConnections = 100;
+            private int maxConnectionsPerRoute = 20;
+
+            // per host limits, e.g. api.spotify.com: 50 -> overrides maxConnectionsPerRoute for that host
+            private Map<String, Integer> maxConnectionsPerHost = new HashMap<>();
+
+            private Duration connectTimeout = Duration.ofSeconds(5);
+            private Duration readTimeout = Duration.ofSeconds(10);
+            private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+            private Duration idleTimeout = Duration.ofSeconds(30);
+            private Duration timeToLive = Duration.ofMinutes(5);
+
+            public int getMaxConnections() {
+                return maxConnections;
+            }
+
+            public void setMaxConnections(int maxConnections) {
+                this.maxConnections = maxConnections;
+            }
+
+            public int getMaxConnectionsPerRoute() {
+                return maxConnectionsPerRoute;
+            }
+
+            public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+                this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            }
+
+            public Map<String, Integer> getMaxConnectionsPerHost() {
+                return maxConnectionsPerHost;
+            }
+
+            public void setMaxConnectionsPerHost(Map<String, Integer> maxConnectionsPerHost) {
+                this.maxConnectionsPerHost = maxConnectionsPerHost;
+            }
+
+            public Duration getConnectTimeout() {
+                return connectTimeout;
+            }
+
+            public void setConnectTimeout(Duration connectTimeout) {
+                this.connectTimeout = connectTimeout;
+            }
+
+            public Duration getReadTimeout() {
+                return readTimeout;
+            }
+
+            public void setReadTimeout(Duration readTimeout) {
+                this.readTimeout = readTimeout;
+            }
+
+            public Duration getConnectionRequestTimeout() {
+                return connectionRequestTimeout;
+            }
+
+            public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+                this.connectionRequestTimeout = connectionRequestTimeout;
+            }
+
+            public Duration getIdleTimeout() {
+                return idleTimeout;
+            }
+
+            public void setIdleTimeout(Duration idleTimeout) {
+                this.idleTimeout = idleTimeout;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+        }
+
+        public static class Resilience {
+
+            // bulkhead: concurrent calls per endpoint, e.g. recommendations: 10
+            private int maxConcurrentCalls = 20;
+            private Map<String, Integer> maxConcurrentCallsPerEndpoint = new HashMap<>();
+            private Duration maxWait = Duration.ofMillis(500);
+
+            // circuit breaker: opens when the failure rate of the last calls reaches the threshold
+            private float failureRateThreshold = 50;
+            private int slidingWindowSize = 20;
+            private int minimumCalls = 10;
+            private Duration openDuration = Duration.ofSeconds(30);
+
+            public int getMaxConcurrentCalls() {
+                return maxConcurrentCalls;
+            }
+
+            public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+                this.maxConcurrentCalls = maxConcurrentCalls;
+            }
+
+            public Map<String, Integer> getMaxConcurrentCallsPerEndpoint() {
+                return maxConcurrentCallsPerEndpoint;
+            }
+
+            public void setMaxConcurrentCallsPerEndpoint(Map<String, Integer> maxConcurrentCallsPerEndpoint) {
+                this.maxConcurrentCallsPerEndpoint = maxConcurrentCallsPerEndpoint;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+
+            public float getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(float failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+
+            public void setSlidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+        }
+
+        public static class RateLimit {
+
+            private double permitsPerSecond = 10;
+            private int burst = 20;
+
+            // fraction of the burst that background requests can't use, kept for users requests
+            private double backgroundReserve = 0.25;
+
+            private Duration maxWait = Duration.ofSeconds(10);
+            private Duration backgroundMaxWait = Duration.ofMinutes(2);
+
+            // retries of 429, 5xx and I/O errors with jittered exponential backoff
+            private int maxRetries = 3;
+            private Duration initialBackoff = Duration.ofMillis(200);
+            private Duration maxBackoff = Duration.ofSeconds(5);
+
+            public double getPermitsPerSecond() {
+                return permitsPerSecond;
+            }
+
+            public void setPermitsPerSecond(double permitsPerSecond) {
+                this.permitsPerSecond = permitsPerSecond;
+            }
+
+            public int getBurst() {
+                return burst;
+            }
+
+            public void setBurst(int burst) {
+                this.burst = burst;
+            }
+
+            public double getBackgroundReserve() {
+                return backgroundReserve;
+            }
+
+            public void setBackgroundReserve(double backgroundReserve) {
+                this.backgroundReserve = backgroundReserve;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+
+            public Duration getBackgroundMaxWait() {
+                return backgroundMaxWait;
+            }
+
+            public void setBackgroundMaxWait(Duration backgroundMaxWait) {
+                this.backgroundMaxWait = backgroundMaxWait;
+            }
+
+            public int getMaxRetries() {
+                return maxRetries;
+            }
+
+            public void setMaxRetries(int maxRetries) {
+                this.maxRetries = maxRetries;
+            }
+
+            public Duration getInitialBackoff() {
+                return initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public Duration getMaxBackoff() {
+                return maxBackoff;
+            }
+
+            public void setMaxBackoff(Duration maxBackoff) {
+                this.maxBackoff = maxBackoff;
+            }
+        }
+
+        public static class Token {
+
+            // tokens are refreshed in background when they expire in less than this window
+            private Duration refreshSkew = Duration.ofMinutes(5);
+            private long maxHotTokens = 10000;
+
+            // max time a request waits for the refresh of its expired token
+            private Duration refreshTimeout = Duration.ofSeconds(10);
+
+            // time the last flush of a run (or of the shutdown) waits for the deferred refreshes in flight
+            private Duration flushTimeout = Duration.ofSeconds(10);
+
+            public Duration getRefreshSkew() {
+                return refreshSkew;
+            }
+
+            public void setRefreshSkew(Duration refreshSkew) {
+                this.refreshSkew = refreshSkew;
+            }
+
+            public long getMaxHotTokens() {
+                return maxHotTokens;
+            }
+
+            public void setMaxHotTokens(long maxHotTokens) {
+                this.maxHotTokens = maxHotTokens;
+            }
+
+            public Duration getRefreshTimeout() {
+                return refreshTimeout;
+            }
+
+            public void setRefreshTimeout(Duration refreshTimeout) {
+                this.refreshTimeout = refreshTimeout;
+            }
+
+            public Duration getFlushTimeout() {
+                return flushTimeout;
+            }
+
+            public void setFlushTimeout(Duration flushTimeout) {
+                this.flushTimeout = flushTimeout;
+            }
+        }
+
+        public static class Batch {
+
+            // time a batch waits for the ids of other requests
+            private Duration window = Duration.ofMillis(10);
+
+            // max ids per request of each endpoint
+            private int maxTracks = 50;
+            private int maxAudioFeatures = 100;
+
+            // threads that send the batches, a batch that doesn't fit in the queue fails its callers
+            private int senders = 8;
+            private int queueCapacity = 100;
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxTracks() {
+                return maxTracks;
+            }
+
+            public void setMaxTracks(int maxTracks) {
+                this.maxTracks = maxTracks;
+            }
+
+            public int getMaxAudioFeatures() {
+                return maxAudioFeatures;
+            }
+
+            public void setMaxAudioFeatures(int maxAudioFeatures) {
+                this.maxAudioFeatures = maxAudioFeatures;
+            }
+
+            public int getSenders() {
+                return senders;
+            }
+
+            public void setSenders(int senders) {
+                this.senders = senders;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        public static class Executor {
+
+            private int coreSize = 8;
+            private int maxSize = 32;
+            private int queueCapacity = 200;
+
+            public int getCoreSize() {
+                return coreSize;
+            }
+
+            public void setCoreSize(int coreSize) {
+                this.coreSize = coreSize;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+    }
+
+    public static class PlaylistRefresh {
+
+        // max number of users refreshed at the same time
+        private int concurrency = 4;
+
+        // users loaded from database per query
+        private int batchSize = 100;
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Security {
+
+        /**
+         * SESSION: HTTP Basic and a JSESSIONID session per client
+         * STATELESS: HTTP Basic only to get a signed access token (POST /api/token), then Bearer tokens
+         */
+        public enum Mode { SESSION, STATELESS }
+
+        private Mode mode = Mode.SESSION;
+
+        /**
+         * signed access tokens of the stateless mode
+         */
+        private final Token token = new Token();
+
+        public Token getToken() {
+            return token;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public static class Token {
+
+            private Duration validity = Duration.ofMinutes(15);
+
+            // id of the key that signs the new tokens
+            private String signingKeyId;
+
+            // key id -> secret (base64, at least 32 bytes); all the keys verify the tokens, so a key can be rotated
+            // by adding the new key, signing with it and removing the old key after the validity
+            private Map<String, String> keys = new HashMap<>();
+
+            public Duration getValidity() {
+                return validity;
+            }
+
+            public void setValidity(Duration validity) {
+                this.validity = validity;
+            }
+
+            public String getSigningKeyId() {
+                return signingKeyId;
+            }
+
+            public void setSigningKeyId(String signingKeyId) {
+                this.signingKeyId = signingKeyId;
+            }
+
+            public Map<String, String> getKeys() {
+                return keys;
+            }
+
+            public void setKeys(Map<String, String> keys) {
+                this.keys = keys;
+            }
+        }
+    }
+
+    public static class Web {
+
+        /**
+         * SYNC: the Spotify resources run in the servlet thread
+         * ASYNC: the Spotify calls are composed as futures, no thread waits while they are pending
+         */
+        public enum Mode { SYNC, ASYNC }
+
+        private Mode mode = Mode.SYNC;
+
+        // max time of an async request, then the client gets a 503
+        private Duration requestTimeout = Duration.ofSeconds(30);
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+    }
+
+    public static class VirtualThreads {
+
+        // requires a JDK 21+ runtime, the application fails to start on an older one
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class PlayHistory {
+
+        // last plays used to build the user taste
+        private int profilePlays = 200;
+
+        // max requests to Spotify per ingestion, 50 plays per request
+        private int maxPages = 4;
+
+        // plays older than this are deleted
+        private Duration retention = Duration.ofDays(180);
+
+        public int getProfilePlays() {
+            return profilePlays;
+        }
+
+        public void setProfilePlays(int profilePlays) {
+            this.profilePlays = profilePlays;
+        }
+
+        public int getMaxPages() {
+            return maxPages;
+        }
+
+        public void setMaxPages(int maxPages) {
+            this.maxPages = maxPages;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+    }
+
+    public static class Recommendations {
+
+        /**
+         * REMOTE: Spotify recommendations endpoint
+         * LOCAL: nearest tracks in the local audio features, Spotify recommendations for cold users
+         */
+        public enum Engine { REMOTE, LOCAL }
+
+        // engine used when the request doesn't select one (?engine=local|remote)
+        private Engine engine = Engine.REMOTE;
+
+        // played tracks with features needed by the local engine
+        private int minProfileTracks = 5;
+
+        // tracks the local engine must find, otherwise the remote engine is used
+        private int minCandidates = 20;
+
+        // a play weighs half in the taste profile after this time
+        private Duration tasteHalfLife = Duration.ofDays(30);
+
+        // artists kept in the taste profile, the first ones are used as seeds
+        private int topArtists = 20;
+
+        // min_/max_ audio features sent to Spotify: mean -/+ this number of standard deviations
+        private float rangeStandardDeviations = 1.5f;
+
+        // cached suggestions older than this are served and refreshed in background
+        private Duration staleAfter = Duration.ofHours(1);
+
+        // workers of the background refreshes of the stale suggestions, a refresh is skipped when the queue is full
+        private int refreshConcurrency = 2;
+        private int refreshQueueCapacity = 50;
+
+        /**
+         * approximate nearest neighbours index of the local engine
+         */
+        private final Ann ann = new Ann();
+
+        public Ann getAnn() {
+            return ann;
+        }
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public void setEngine(Engine engine) {
+            this.engine = engine;
+        }
+
+        public int getMinProfileTracks() {
+            return minProfileTracks;
+        }
+
+        public void setMinProfileTracks(int minProfileTracks) {
+            this.minProfileTracks = minProfileTracks;
+        }
+
+        public int getMinCandidates() {
+            return minCandidates;
+        }
+
+        public void setMinCandidates(int minCandidates) {
+            this.minCandidates = minCandidates;
+        }
+
+        public Duration getTasteHalfLife() {
+            return tasteHalfLife;
+        }
+
+        public void setTasteHalfLife(Duration tasteHalfLife) {
+            this.tasteHalfLife = tasteHalfLife;
+        }
+
+        public int getTopArtists() {
+            return topArtists;
+        }
+
+        public void setTopArtists(int topArtists) {
+            this.topArtists = topArtists;
+        }
+
+        public float getRangeStandardDeviations() {
+            return rangeStandardDeviations;
+        }
+
+        public void setRangeStandardDeviations(float rangeStandardDeviations) {
+            this.rangeStandardDeviations = rangeStandardDeviations;
+        }
+
+        public Duration getStaleAfter() {
+            return staleAfter;
+        }
+
+        public void setStaleAfter(Duration staleAfter) {
+            this.staleAfter = staleAfter;
+        }
+
+        public int getRefreshConcurrency() {
+            return refreshConcurrency;
+        }
+
+        public void setRefreshConcurrency(int refreshConcurrency) {
+            this.refreshConcurrency = refreshConcurrency;
+        }
+
+        public int getRefreshQueueCapacity() {
+            return refreshQueueCapacity;
+        }
+
+        public void setRefreshQueueCapacity(int refreshQueueCapacity) {
+            this.refreshQueueCapacity = refreshQueueCapacity;
+        }
+
+        public static class Ann {
+
+            private boolean enabled = true;
+
+            // below this number of tracks the exact search is used
+            private int minTracks = 10000;
+
+            // HNSW links per node, more is a better recall with more memory
+            private int m = 16;
+
+            // candidates explored per insert and per search, more is a better recall and slower
+            private int efConstruction = 100;
+            private int efSearch = 64;
+
+            private String snapshotPath = "plugtify/track-features.hnsw";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMinTracks() {
+                return minTracks;
+            }
+
+            public void setMinTracks(int minTracks) {
+                this.minTracks = minTracks;
+            }
+
+            public int getM() {
+                return m;
+            }
+
+            public void setM(int m) {
+                this.m = m;
+            }
+
+            public int getEfConstruction() {
+                return efConstruction;
+            }
+
+            public void setEfConstruction(int efConstruction) {
+                this.efConstruction = efConstruction;
+            }
+
+            public int getEfSearch() {
+                return efSearch;
+            }
+
+            public void setEfSearch(int efSearch) {
+                this.efSearch = efSearch;
+            }
+
+            public String getSnapshotPath() {
+                return snapshotPath;
+            }
+
+            public void setSnapshotPath(String snapshotPath) {
+                this.snapshotPath = snapshotPath;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        public enum Mode { LOCAL, DISTRIBUTED }
+
+        public enum SharedTier { REDIS, IN_MEMORY }
+
+        // distributed: user caches are two level caches (near-cache + shared tier) coherent across replicas
+        private Mode mode = Mode.LOCAL;
+        private SharedTier sharedTier = SharedTier.REDIS;
+
+        // Spotify catalog: tracks and audio features don't change for a given track id
+        private final CacheSettings tracks = new CacheSettings(20000, Duration.ofHours(24));
+        private final CacheSettings audioFeatures = new CacheSettings(20000, Duration.ofHours(24));
+
+        // users by login/email, used by the authentication on every request
+        private final CacheSettings userByLogin = new CacheSettings(5000, Duration.ofHours(1));
+        private final CacheSettings userByEmail = new CacheSettings(5000, Duration.ofHours(1));
+
+        // last suggested tracks by user, refreshed by the background process and on demand
+        private final CacheSettings suggestions = new CacheSettings(10000, Duration.ofHours(24));
+
+        // credentials verified by BCrypt, always local to the replica
+        private final CacheSettings authentications = new CacheSettings(10000, Duration.ofMinutes(5));
+
+        // revocations of the access tokens by user id, they must live as long as the token validity:
+        // no max size, an evicted revocation would accept the revoked tokens again;
+        // the time to live is always security.token.validity (CacheConfig), a configured one is ignored
+        private final CacheSettings revokedTokens = new CacheSettings(0, Duration.ofMinutes(15));
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public SharedTier getSharedTier() {
+            return sharedTier;
+        }
+
+        public void setSharedTier(SharedTier sharedTier) {
+            this.sharedTier = sharedTier;
+        }
+
+        public CacheSettings getTracks() {
+            return tracks;
+        }
+
+        public CacheSettings getAudioFeatures() {
+            return audioFeatures;
+        }
+
+        public CacheSettings getUserByLogin() {
+            return userByLogin;
+        }
+
+        public CacheSettings getUserByEmail() {
+            return userByEmail;
+        }
+
+        public CacheSettings getSuggestions() {
+            return suggestions;
+        }
+
+        public CacheSettings getAuthentications() {
+            return authentications;
+        }
+
+        public CacheSettings getRevokedTokens() {
+            return revokedTokens;
+        }
+    }
+
+    public static class CacheSettings {
+
+        // 0: no size eviction, the entries only expire
+        private long maxSize;
+        private Duration timeToLive;
+
+        public CacheSettings(long maxSize, Duration timeToLive) {
+            this.maxSize = maxSize;
+            this.timeToLive = timeToLive;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
     }
 
 }
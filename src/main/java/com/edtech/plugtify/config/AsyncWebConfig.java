@@ -0,0 +1,28 @@
+package com.edtech.plugtify.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Component to configure the async mode of the REST resources (application.web.mode: async).
+ * The resources return the CompletableFuture of the Spotify calls: the servlet thread is not held
+ * and the response is written by the thread that completes the last call.
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.web", name = "mode", havingValue = "async")
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    private ApplicationProperties applicationProperties;
+
+    public AsyncWebConfig(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(this.applicationProperties.getWeb().getRequestTimeout().toMillis());
+    }
+}
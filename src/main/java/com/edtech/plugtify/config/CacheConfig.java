@@ -1,10 +1,104 @@
 package com.edtech.plugtify.config;
 
+import com.edtech.plugtify.cache.SharedCacheTier;
+import com.edtech.plugtify.cache.TwoLevelCache;
+import com.edtech.plugtify.cache.TwoLevelCacheMeterBinderProvider;
+import com.edtech.plugtify.repository.UserRepository;
+import com.edtech.plugtify.security.TokenRevocations;
+import com.edtech.plugtify.service.SpotifyCatalogCache;
+import com.edtech.plugtify.service.SuggestionCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Component to configure the caches of the application.
+ * Caffeine caches record their statistics, the actuator publishes them as cache.* metrics.
+ * In distributed mode the user caches (suggestions and token revocations too) are two level caches, so a change in one replica is seen by the others.
+ * The Spotify catalog caches are always local: their values never change for a given track id.
+ */
+
 @Configuration
 @EnableCaching
 public class CacheConfig extends CachingConfigurerSupport {
+
+    private ApplicationProperties applicationProperties;
+    private ObjectProvider<SharedCacheTier> sharedCacheTier;
+
+    public CacheConfig(
+            ApplicationProperties applicationProperties,
+            ObjectProvider<SharedCacheTier> sharedCacheTier
+    ) {
+        this.applicationProperties = applicationProperties;
+        this.sharedCacheTier = sharedCacheTier;
+    }
+
+    @Bean
+    @Override
+    public CacheManager cacheManager() {
+        ApplicationProperties.Cache properties = this.applicationProperties.getCache();
+
+        // identifies this replica in the invalidation messages
+        String nodeId = UUID.randomUUID().toString();
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                this.caffeineCache(SpotifyCatalogCache.TRACKS_CACHE, properties.getTracks()),
+                this.caffeineCache(SpotifyCatalogCache.AUDIO_FEATURES_CACHE, properties.getAudioFeatures()),
+                this.coherentCache(UserRepository.USER_BY_LOGIN_CACHE, properties.getUserByLogin(), nodeId),
+                this.coherentCache(UserRepository.USER_BY_EMAIL_CACHE, properties.getUserByEmail(), nodeId),
+                this.coherentCache(SuggestionCache.SUGGESTIONS_CACHE, properties.getSuggestions(), nodeId),
+                this.coherentCache(TokenRevocations.REVOKED_TOKENS_CACHE, this.revokedTokensSettings(), nodeId)
+        ));
+
+        return cacheManager;
+    }
+
+    @Bean
+    public TwoLevelCacheMeterBinderProvider twoLevelCacheMeterBinderProvider() {
+        return new TwoLevelCacheMeterBinderProvider();
+    }
+
+    /**
+     * A revocation must live as long as the tokens it revokes: its time to live is the token validity
+     */
+    private ApplicationProperties.CacheSettings revokedTokensSettings() {
+        return new ApplicationProperties.CacheSettings(this.applicationProperties.getCache().getRevokedTokens().getMaxSize(),
+                this.applicationProperties.getSecurity().getToken().getValidity());
+    }
+
+    private Cache coherentCache(String name, ApplicationProperties.CacheSettings settings, String nodeId) {
+        if(this.applicationProperties.getCache().getMode() == ApplicationProperties.Cache.Mode.LOCAL) {
+            return this.caffeineCache(name, settings);
+        }
+
+        return new TwoLevelCache(name, nodeId, this.caffeine(settings).build(), this.sharedCacheTier.getObject(), settings.getTimeToLive());
+    }
+
+    private CaffeineCache caffeineCache(String name, ApplicationProperties.CacheSettings settings) {
+        return new CaffeineCache(name, this.caffeine(settings).build());
+    }
+
+    private Caffeine<Object, Object> caffeine(ApplicationProperties.CacheSettings settings) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats();
+
+        if(settings.getMaxSize() > 0) {
+            caffeine.maximumSize(settings.getMaxSize()); // W-TinyLFU eviction when the cache is full
+        }
+
+        return caffeine;
+    }
 }
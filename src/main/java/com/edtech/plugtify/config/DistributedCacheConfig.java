@@ -0,0 +1,66 @@
+package com.edtech.plugtify.config;
+
+import com.edtech.plugtify.cache.InMemorySharedCacheTier;
+import com.edtech.plugtify.cache.RedisSharedCacheTier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Component to configure the shared tier of the two level caches.
+ * -- redis: values and invalidation messages go through Redis (several pods)
+ * -- in-memory: stand-in without external infrastructure (tests, a single process)
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.cache", name = "mode", havingValue = "distributed")
+public class DistributedCacheConfig {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.cache", name = "shared-tier", havingValue = "redis", matchIfMissing = true)
+    static class RedisTierConfig {
+
+        @Bean
+        public RedisTemplate<String, Object> sharedCacheRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+            redisTemplate.setConnectionFactory(redisConnectionFactory);
+            redisTemplate.setKeySerializer(new StringRedisSerializer());
+            redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
+
+            return redisTemplate;
+        }
+
+        @Bean
+        public RedisSharedCacheTier redisSharedCacheTier(RedisTemplate<String, Object> sharedCacheRedisTemplate) {
+            return new RedisSharedCacheTier(sharedCacheRedisTemplate);
+        }
+
+        @Bean
+        public RedisMessageListenerContainer sharedCacheListenerContainer(
+                RedisConnectionFactory redisConnectionFactory,
+                RedisSharedCacheTier redisSharedCacheTier
+        ) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.addMessageListener(redisSharedCacheTier, new ChannelTopic(RedisSharedCacheTier.INVALIDATION_CHANNEL));
+
+            return container;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.cache", name = "shared-tier", havingValue = "in-memory")
+    static class InMemoryTierConfig {
+
+        @Bean
+        public InMemorySharedCacheTier inMemorySharedCacheTier() {
+            return new InMemorySharedCacheTier();
+        }
+    }
+}
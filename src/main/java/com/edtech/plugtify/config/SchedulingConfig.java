@@ -0,0 +1,85 @@
+package com.edtech.plugtify.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Component to configure the workers of the background processes
+ */
+
+@Configuration
+public class SchedulingConfig {
+
+    private ApplicationProperties applicationProperties;
+
+    public SchedulingConfig(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * thread of the @Scheduled jobs
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("scheduling-");
+
+        if(this.applicationProperties.getVirtualThreads().isEnabled()) {
+            scheduler.setThreadFactory(VirtualThreads.threadFactory("scheduling-"));
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * the pool size is the global cap of users refreshed at the same time, the other users wait in the queue
+     */
+    @Bean
+    public AsyncTaskExecutor playlistRefreshExecutor() {
+        int concurrency = this.applicationProperties.getPlaylistRefresh().getConcurrency();
+
+        if(this.applicationProperties.getVirtualThreads().isEnabled()) {
+            // one virtual thread per user, the scheduler waits when the concurrency limit is reached
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("playlist-refresh-"));
+            executor.setConcurrencyLimit(concurrency);
+
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("playlist-refresh-");
+
+        return executor;
+    }
+
+    /**
+     * workers of the refreshes of the stale suggestions started by the requests: not the playlistRefreshExecutor,
+     * its queue is unbounded. A full queue rejects the refresh (AbortPolicy), the request never waits for it
+     */
+    @Bean
+    public AsyncTaskExecutor suggestionRefreshExecutor() {
+        ApplicationProperties.Recommendations properties = this.applicationProperties.getRecommendations();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getRefreshConcurrency());
+        executor.setMaxPoolSize(properties.getRefreshConcurrency());
+        executor.setQueueCapacity(properties.getRefreshQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("suggestion-refresh-");
+
+        if(this.applicationProperties.getVirtualThreads().isEnabled()) {
+            // still a bounded pool: a SimpleAsyncTaskExecutor has no queue to bound
+            executor.setThreadFactory(VirtualThreads.threadFactory("suggestion-refresh-"));
+        }
+
+        return executor;
+    }
+}
@@ -1,8 +1,14 @@
 package com.edtech.plugtify.config;
 
+import com.edtech.plugtify.security.AuthenticationCache;
 import com.edtech.plugtify.security.AuthorityConstants;
+import com.edtech.plugtify.security.CachedCredentialsAuthenticationProvider;
+import com.edtech.plugtify.security.TokenAuthenticationFilter;
+import com.edtech.plugtify.security.TokenProvider;
+import com.edtech.plugtify.security.TokenRevocations;
 import com.edtech.plugtify.security.DomainUserDetailsService;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -10,9 +16,11 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.logout.LogoutFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 
@@ -21,7 +29,8 @@ import javax.annotation.PostConstruct;
 /**
  * Component to configure the security of the application.
  * -- Declare the type of authentication manager
- * -- Type of Authentication  -> Http Basic Authentication
+ * -- Type of Authentication  -> Http Basic Authentication, with the verified credentials cached (AuthenticationCache)
+ *    and JSESSIONID sessions, or in stateless mode signed Bearer access tokens (TokenProvider) without sessions
  * -- filtering requests
  */
 
@@ -33,15 +42,27 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     private AuthenticationManagerBuilder authenticationManagerBuilder;
     private UserDetailsService userDetailsService;
     private SecurityProblemSupport securityProblemSupport;
+    private AuthenticationCache authenticationCache;
+    private ApplicationProperties applicationProperties;
+    private ObjectProvider<TokenProvider> tokenProvider;
+    private TokenRevocations tokenRevocations;
 
     public SecurityConfiguration(
             AuthenticationManagerBuilder authenticationManagerBuilder,
             UserDetailsService userDetailsService,
-            SecurityProblemSupport securityProblemSupport
+            SecurityProblemSupport securityProblemSupport,
+            AuthenticationCache authenticationCache,
+            ApplicationProperties applicationProperties,
+            ObjectProvider<TokenProvider> tokenProvider,
+            TokenRevocations tokenRevocations
     ) {
         this.authenticationManagerBuilder = authenticationManagerBuilder;
         this.userDetailsService = userDetailsService;
         this.securityProblemSupport = securityProblemSupport;
+        this.authenticationCache = authenticationCache;
+        this.applicationProperties = applicationProperties;
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocations = tokenRevocations;
     }
 
     /**
@@ -51,10 +72,10 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @PostConstruct
     public void init() {
         try {
-            // type authentication definition
+            // type authentication definition: BCrypt only runs for the credentials not verified recently
             this.authenticationManagerBuilder
-                    .userDetailsService(this.userDetailsService)
-                    .passwordEncoder(this.passwordEncoder());
+                    .authenticationProvider(new CachedCredentialsAuthenticationProvider(
+                            this.userDetailsService, this.passwordEncoder(), this.authenticationCache));
         } catch(Exception e) {
             throw new BeanInitializationException("Security Configuration Fails: " + e);
         }
@@ -80,9 +101,25 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                     .antMatchers("/", "/login").permitAll()
                     .antMatchers("/api/register").permitAll()
                     .antMatchers("/api/csrf-token").permitAll()
+                    .antMatchers("/api/management/**").hasAnyAuthority(AuthorityConstants.ROLE_ADMIN)
                     .antMatchers("/api/**").authenticated()
-                    .antMatchers("/api/managment/**").hasAnyAuthority(AuthorityConstants.ROLE_ADMIN)
                     .anyRequest().denyAll();
+
+        if(this.applicationProperties.getSecurity().getMode() == ApplicationProperties.Security.Mode.STATELESS) {
+            http
+                .sessionManagement()
+                    .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                    // before the logout filter: a logout with a token knows its user
+                    .addFilterBefore(new TokenAuthenticationFilter(this.tokenProvider.getObject()), LogoutFilter.class)
+                    .logout()
+                    .addLogoutHandler((request, response, authentication) -> {
+                        // logout with a token revokes all the tokens of the user
+                        if(authentication != null && authentication.getDetails() instanceof TokenProvider.TokenDetails) {
+                            this.tokenRevocations.revoke(((TokenProvider.TokenDetails) authentication.getDetails()).getUserId());
+                        }
+                    });
+        }
     }
 
     @Bean
@@ -0,0 +1,123 @@
+package com.edtech.plugtify.config;
+
+import com.edtech.plugtify.service.SpotifyRateLimitInterceptor;
+import com.edtech.plugtify.service.SpotifyRequestPriority;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Component to configure the http client used to call the Spotify API.
+ * -- one pooled (keep-alive) http client for the whole application
+ * -- one RestTemplate with shared message converters, isolated per endpoint (SpotifyResilienceInterceptor)
+ *    and rate limited (SpotifyRateLimitInterceptor)
+ * -- one bounded executor to send independent Spotify requests at the same time,
+ *    or one virtual thread per request when application.virtual-threads.enabled is true
+ */
+
+@Configuration
+public class SpotifyClientConfig {
+
+    private ApplicationProperties applicationProperties;
+
+    public SpotifyClientConfig(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient spotifyHttpClient() {
+        ApplicationProperties.Spotify.HttpClient properties = this.applicationProperties.getSpotify().getHttpClient();
+
+        // connections are reused between requests, so the TLS handshake is done once per connection
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(properties.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+
+        properties.getMaxConnectionsPerHost().forEach((host, maxConnections) ->
+                connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(host, 443, "https")), maxConnections));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate spotifyRestTemplate(
+            CloseableHttpClient spotifyHttpClient,
+            SpotifyRateLimitInterceptor spotifyRateLimitInterceptor
+    ) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(spotifyHttpClient));
+        restTemplate.setMessageConverters(this.getMessageConverters());
+        // the rate limit interceptor retries, it must be the last one (it runs each attempt in the bulkheads)
+        restTemplate.setInterceptors(List.of(spotifyRateLimitInterceptor));
+
+        return restTemplate;
+    }
+
+    @Bean
+    public AsyncTaskExecutor spotifyExecutor() {
+        if(this.applicationProperties.getVirtualThreads().isEnabled()) {
+            // the requests are still bounded by the bulkheads, the rate limiter and the connection pool
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("spotify-"));
+            executor.setTaskDecorator(SpotifyRequestPriority.propagate());
+
+            return executor;
+        }
+
+        ApplicationProperties.Spotify.Executor properties = this.applicationProperties.getSpotify().getExecutor();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCoreSize());
+        executor.setMaxPoolSize(properties.getMaxSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("spotify-");
+        // background processes keep their lower priority in the requests sent through this executor
+        executor.setTaskDecorator(SpotifyRequestPriority.propagate());
+        // when the pool is full the task is rejected: the request thread never runs a refresh itself,
+        // and no task is dropped silently after the shutdown (see SpotifyTokenManager.refresh)
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        return executor;
+    }
+
+    /**
+     * Method to get MessageConverter(s) for JSON and x-www-urlencoded
+     * @return List of Http Message converters
+     */
+    private List<HttpMessageConverter<?>> getMessageConverters() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        converters.add(new FormHttpMessageConverter()); // Message converter for application/x-www-urlencoded -> Request
+        converters.add(new MappingJackson2HttpMessageConverter()); // Message converter for application/JSON -> Response
+
+        return converters;
+    }
+}
@@ -0,0 +1,44 @@
+package com.edtech.plugtify.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of the running JVM (JDK 21+).
+ * The application is compiled for Java 12, so Thread.ofVirtual() is called by reflection.
+ */
+
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param prefix thread name prefix, e.g. "spotify-" -> spotify-0, spotify-1...
+     * @return factory of virtual threads
+     * @throws IllegalStateException if the JVM doesn't support virtual threads
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+
+            return (ThreadFactory) factory.invoke(name.invoke(builder, prefix, 0L));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "application.virtual-threads.enabled requires a JDK 21+ runtime, running on " + System.getProperty("java.version"), e);
+        }
+    }
+}
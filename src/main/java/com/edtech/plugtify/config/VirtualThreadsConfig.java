@@ -0,0 +1,37 @@
+package com.edtech.plugtify.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Component to run the servlet requests on virtual threads (application.virtual-threads.enabled: true).
+ * Tomcat creates one virtual thread per request instead of taking a thread of its bounded pool,
+ * the JDBC and Spotify calls of the request park the virtual thread and free its carrier thread.
+ * The mode is unsupported: it is only verified by VirtualThreadsSmokeTest on a JDK 21+ runtime (gradle virtualThreadsTest).
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean
+    public TomcatConnectorCustomizer virtualThreadsConnectorCustomizer() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("http-"));
+
+        this.logger.warn("Servlet requests, Spotify calls and background processes run on virtual threads (unsupported mode)");
+
+        return connector -> {
+            if(connector.getProtocolHandler() instanceof AbstractProtocol) {
+                ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(executor);
+            }
+        };
+    }
+}
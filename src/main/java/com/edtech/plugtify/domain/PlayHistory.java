@@ -0,0 +1,96 @@
+package com.edtech.plugtify.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Entity: PlayHistory
+ * Tracks played by a user, ingested from the Spotify recently played tracks
+ */
+
+@Entity
+@Table(name = "tbl_play_history")
+public class PlayHistory implements Serializable {
+
+    // ids allocated 50 at a time from tbl_id_generator, IDENTITY would disable the insert batching
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "play_history_id")
+    @TableGenerator(
+            name = "play_history_id",
+            table = "tbl_id_generator",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "play_history",
+            allocationSize = 50
+    )
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "track_id", length = 62, nullable = false)
+    private String trackId;
+
+    @Column(name = "played_at", nullable = false)
+    private Timestamp playedAt;
+
+    // first artist of the track
+    @Column(name = "artist_id", length = 62)
+    private String artistId;
+
+    public PlayHistory() {
+    }
+
+    public PlayHistory(Long userId, String trackId, String artistId, Timestamp playedAt) {
+        this.userId = userId;
+        this.trackId = trackId;
+        this.artistId = artistId;
+        this.playedAt = playedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(String trackId) {
+        this.trackId = trackId;
+    }
+
+    public Timestamp getPlayedAt() {
+        return playedAt;
+    }
+
+    public void setPlayedAt(Timestamp playedAt) {
+        this.playedAt = playedAt;
+    }
+
+    public String getArtistId() {
+        return artistId;
+    }
+
+    public void setArtistId(String artistId) {
+        this.artistId = artistId;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayHistory{}";
+    }
+}
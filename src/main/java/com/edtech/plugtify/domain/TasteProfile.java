@@ -0,0 +1,100 @@
+package com.edtech.plugtify.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Entity: TasteProfile
+ * Time decayed statistics of the audio features played by a user, updated as the plays are ingested
+ */
+
+@Entity
+@Table(name = "tbl_taste_profile")
+public class TasteProfile implements Serializable {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // last play folded in the statistics
+    @Column(name = "last_played_at")
+    private Timestamp lastPlayedAt;
+
+    // decayed number of plays
+    @Column(name = "weight", nullable = false)
+    private double weight;
+
+    @Column(name = "plays", nullable = false)
+    private int plays;
+
+    // means and weighted sums of squared deviations, floats (see TasteProfileService)
+    @Column(name = "statistics", length = 255, nullable = false)
+    private byte[] statistics;
+
+    // artistId:score separated by ,
+    @Column(name = "top_artists", length = 2000)
+    private String topArtists;
+
+    // optimistic lock: two updates of the same profile (e.g. a request and the background refresh) don't overwrite each other
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Timestamp getLastPlayedAt() {
+        return lastPlayedAt;
+    }
+
+    public void setLastPlayedAt(Timestamp lastPlayedAt) {
+        this.lastPlayedAt = lastPlayedAt;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public int getPlays() {
+        return plays;
+    }
+
+    public void setPlays(int plays) {
+        this.plays = plays;
+    }
+
+    public byte[] getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(byte[] statistics) {
+        this.statistics = statistics;
+    }
+
+    public String getTopArtists() {
+        return topArtists;
+    }
+
+    public void setTopArtists(String topArtists) {
+        this.topArtists = topArtists;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "TasteProfile{}";
+    }
+}
@@ -0,0 +1,152 @@
+package com.edtech.plugtify.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Entity: TrackFeatures
+ * Audio features and popularity of a Spotify track, shared by all users
+ */
+
+@Entity
+@Table(name = "tbl_track_features")
+public class TrackFeatures implements Persistable<String>, Serializable {
+
+    @Id
+    @Column(name = "track_id", length = 62)
+    private String trackId;
+
+    @Column(name = "acousticness", nullable = false)
+    private float acousticness;
+
+    @Column(name = "danceability", nullable = false)
+    private float danceability;
+
+    @Column(name = "energy", nullable = false)
+    private float energy;
+
+    @Column(name = "instrumentalness", nullable = false)
+    private float instrumentalness;
+
+    @Column(name = "liveness", nullable = false)
+    private float liveness;
+
+    @Column(name = "speechiness", nullable = false)
+    private float speechiness;
+
+    @Column(name = "valence", nullable = false)
+    private float valence;
+
+    @Column(name = "tempo", nullable = false)
+    private float tempo;
+
+    @Column(name = "popularity", nullable = false)
+    private int popularity;
+
+    // the id is assigned, so a new entity is inserted without a select first
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public String getId() {
+        return trackId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    private void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(String trackId) {
+        this.trackId = trackId;
+    }
+
+    public float getAcousticness() {
+        return acousticness;
+    }
+
+    public void setAcousticness(float acousticness) {
+        this.acousticness = acousticness;
+    }
+
+    public float getDanceability() {
+        return danceability;
+    }
+
+    public void setDanceability(float danceability) {
+        this.danceability = danceability;
+    }
+
+    public float getEnergy() {
+        return energy;
+    }
+
+    public void setEnergy(float energy) {
+        this.energy = energy;
+    }
+
+    public float getInstrumentalness() {
+        return instrumentalness;
+    }
+
+    public void setInstrumentalness(float instrumentalness) {
+        this.instrumentalness = instrumentalness;
+    }
+
+    public float getLiveness() {
+        return liveness;
+    }
+
+    public void setLiveness(float liveness) {
+        this.liveness = liveness;
+    }
+
+    public float getSpeechiness() {
+        return speechiness;
+    }
+
+    public void setSpeechiness(float speechiness) {
+        this.speechiness = speechiness;
+    }
+
+    public float getValence() {
+        return valence;
+    }
+
+    public void setValence(float valence) {
+        this.valence = valence;
+    }
+
+    public float getTempo() {
+        return tempo;
+    }
+
+    public void setTempo(float tempo) {
+        this.tempo = tempo;
+    }
+
+    public int getPopularity() {
+        return popularity;
+    }
+
+    public void setPopularity(int popularity) {
+        this.popularity = popularity;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackFeatures{}";
+    }
+}
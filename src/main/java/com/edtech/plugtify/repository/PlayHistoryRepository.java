@@ -0,0 +1,36 @@
+package com.edtech.plugtify.repository;
+
+import com.edtech.plugtify.domain.PlayHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * PlayHistory Repository
+ */
+
+@Repository
+public interface PlayHistoryRepository extends JpaRepository<PlayHistory, Long> {
+
+    /**
+     * @return the last play stored for the user, it is the cursor of the next ingestion
+     */
+    @Query("select max(a.playedAt) from PlayHistory a where a.userId = :userId")
+    Timestamp findLastPlayedAt(@Param("userId") Long userId);
+
+    List<PlayHistory> findByUserIdOrderByPlayedAtDesc(Long userId, Pageable pageable);
+
+    List<PlayHistory> findByUserIdAndPlayedAtAfterOrderByPlayedAtAsc(Long userId, Timestamp playedAt, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PlayHistory a where a.playedAt < :before")
+    int deleteByPlayedAtBefore(@Param("before") Timestamp before);
+}
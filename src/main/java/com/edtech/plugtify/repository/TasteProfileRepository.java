@@ -0,0 +1,13 @@
+package com.edtech.plugtify.repository;
+
+import com.edtech.plugtify.domain.TasteProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * TasteProfile Repository
+ */
+
+@Repository
+public interface TasteProfileRepository extends JpaRepository<TasteProfile, Long> {
+}
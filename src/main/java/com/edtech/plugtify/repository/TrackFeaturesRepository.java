@@ -0,0 +1,13 @@
+package com.edtech.plugtify.repository;
+
+import com.edtech.plugtify.domain.TrackFeatures;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * TrackFeatures Repository
+ */
+
+@Repository
+public interface TrackFeaturesRepository extends JpaRepository<TrackFeatures, String> {
+}
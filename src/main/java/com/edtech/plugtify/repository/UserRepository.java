@@ -1,8 +1,8 @@
 package com.edtech.plugtify.repository;
 
 import com.edtech.plugtify.domain.User;
-import org.hibernate.annotations.Parameter;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,7 +11,6 @@ import org.springframework.stereotype.Repository;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * User Repository
@@ -26,6 +25,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findOneByEmail(String email);
 
+    // the token is loaded with the user, so it can be read outside of a transaction
+    @Query("select a from User a left join fetch a.token where a.login = :login")
+    Optional<User> findOneWithTokenByLogin(@Param("login") String login);
+
+    @Query("select a from User a left join fetch a.token where a.id = :id")
+    Optional<User> findOneWithTokenById(@Param("id") Long id);
+
     // remember get authorities
 
     @Cacheable(cacheNames = USER_BY_LOGIN_CACHE)
@@ -34,6 +40,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Cacheable(cacheNames = USER_BY_EMAIL_CACHE)
     Optional<User> findOneByEmailIgnoreCase(String email);
 
-    @Query("select a from User a join fetch a.token b where b.lastUpdateTime < :now")
-    Set<User> findAllTokensByDay(@Param("now") Timestamp checkTime);
+    /**
+     * Keyset pagination over the users with a playlist and a token updated before the given time
+     * @param checkTime tokens updated before this time
+     * @param lastId id of the last user of the previous batch, 0 for the first batch
+     * @param pageable only the page size is used, always page 0
+     * @return next batch ordered by id
+     */
+    @Query("select a from User a join fetch a.token b where b.lastUpdateTime < :now and a.playlistId is not null and a.id > :lastId order by a.id")
+    List<User> findPlaylistsToRefresh(@Param("now") Timestamp checkTime, @Param("lastId") Long lastId, Pageable pageable);
 }
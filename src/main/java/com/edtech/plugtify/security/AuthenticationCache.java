@@ -0,0 +1,86 @@
+package com.edtech.plugtify.security;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Component to remember the credentials verified by the password encoder (BCrypt) for a short time.
+ * -- only an HMAC of (username, password, stored hash) is kept, the key is random and never leaves the process,
+ *    so an entry can't be used to recover or verify a password outside of this process
+ * -- the stored hash is part of the HMAC: after a password change the entry doesn't match anymore
+ * -- entries are local to the replica, bounded and expire after their time to live
+ */
+
+@Component
+public class AuthenticationCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private SecretKey key;
+    private Cache<String, byte[]> verifiedCredentials;
+
+    public AuthenticationCache(ApplicationProperties applicationProperties) throws GeneralSecurityException {
+        ApplicationProperties.CacheSettings settings = applicationProperties.getCache().getAuthentications();
+
+        this.key = KeyGenerator.getInstance(ALGORITHM).generateKey();
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @param username username of the UserDetails
+     * @param rawPassword password of the request
+     * @param encodedPassword stored hash
+     * @return true if the same credentials were verified recently
+     */
+    public boolean isVerified(String username, String rawPassword, String encodedPassword) {
+        byte[] verified = this.verifiedCredentials.getIfPresent(username);
+
+        return verified != null && MessageDigest.isEqual(verified, this.hmac(username, rawPassword, encodedPassword));
+    }
+
+    /**
+     * Remember credentials verified by the password encoder
+     */
+    public void putVerified(String username, String rawPassword, String encodedPassword) {
+        this.verifiedCredentials.put(username, this.hmac(username, rawPassword, encodedPassword));
+    }
+
+    /**
+     * Forget the credentials of the user, e.g. when the password changes or the account is deleted
+     * @param username login of the user
+     */
+    public void evict(String username) {
+        this.verifiedCredentials.invalidate(username);
+    }
+
+    private byte[] hmac(String username, String rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+
+            // length prefixed, so the boundaries between the values are not ambiguous
+            for (String value : new String[] { username, rawPassword, encodedPassword }) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                mac.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8), (byte) bytes.length });
+                mac.update(bytes);
+            }
+
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC can not be computed", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.edtech.plugtify.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * DaoAuthenticationProvider that only runs the password encoder (BCrypt) when the credentials
+ * were not verified recently (AuthenticationCache). The UserDetails still come from the UserDetailsService,
+ * so a deleted or changed user is seen as soon as the user caches are evicted.
+ */
+
+public class CachedCredentialsAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private AuthenticationCache authenticationCache;
+
+    public CachedCredentialsAuthenticationProvider(
+            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            AuthenticationCache authenticationCache
+    ) {
+        this.authenticationCache = authenticationCache;
+
+        this.setUserDetailsService(userDetailsService);
+        this.setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if(authentication.getCredentials() == null) {
+            throw new BadCredentialsException(this.messages.getMessage(
+                    "AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
+        }
+
+        String rawPassword = authentication.getCredentials().toString();
+
+        if(this.authenticationCache.isVerified(userDetails.getUsername(), rawPassword, userDetails.getPassword())) {
+            return;
+        }
+
+        super.additionalAuthenticationChecks(userDetails, authentication);
+
+        this.authenticationCache.putVerified(userDetails.getUsername(), rawPassword, userDetails.getPassword());
+    }
+}
@@ -0,0 +1,39 @@
+package com.edtech.plugtify.security;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter to authenticate the requests with a Bearer access token (stateless mode).
+ * A request without a valid token goes on unauthenticated, the authorization rules answer with a 401.
+ */
+
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private TokenProvider tokenProvider;
+
+    public TokenAuthenticationFilter(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader("Authorization");
+
+        if(authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            this.tokenProvider.getAuthentication(authorization.substring(BEARER_PREFIX.length()).trim())
+                    .ifPresent(authentication -> SecurityContextHolder.getContext().setAuthentication(authentication));
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,192 @@
+package com.edtech.plugtify.security;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Component to issue and verify the signed access tokens of the stateless mode (application.security.mode: stateless).
+ * -- JWS compact tokens signed with HMAC-SHA256, the header has the id of the signing key (kid)
+ * -- claims: sub (login), uid (user id), iat and exp
+ * -- the verification doesn't touch the database: signature, expiration and TokenRevocations
+ * -- it needs application.cache.mode: distributed, a revocation in a local cache is only seen by one replica
+ */
+
+@Component
+@ConditionalOnProperty(prefix = "application.security", name = "mode", havingValue = "stateless")
+public class TokenProvider {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+
+    private Logger logger = LoggerFactory.getLogger(TokenProvider.class);
+
+    private ApplicationProperties.Security.Token properties;
+    private TokenRevocations tokenRevocations;
+    private ObjectMapper objectMapper;
+
+    private Map<String, SecretKeySpec> keys = new HashMap<>();
+
+    public TokenProvider(
+            ApplicationProperties applicationProperties,
+            TokenRevocations tokenRevocations,
+            ObjectMapper objectMapper
+    ) {
+        this.properties = applicationProperties.getSecurity().getToken();
+        this.tokenRevocations = tokenRevocations;
+        this.objectMapper = objectMapper;
+
+        if(applicationProperties.getCache().getMode() == ApplicationProperties.Cache.Mode.LOCAL) {
+            throw new BeanInitializationException("The stateless mode requires application.cache.mode: distributed, "
+                    + "the token revocations of a local cache are not seen by the other replicas");
+        }
+
+        this.properties.getKeys().forEach((keyId, secret) -> {
+            if(secret == null || secret.isEmpty()) {
+                return; // e.g. an unset environment variable
+            }
+
+            byte[] key = Base64.getDecoder().decode(secret);
+
+            if(key.length < MIN_KEY_BYTES) {
+                throw new BeanInitializationException("Token key " + keyId + " must have at least " + MIN_KEY_BYTES + " bytes");
+            }
+
+            this.keys.put(keyId, new SecretKeySpec(key, ALGORITHM));
+        });
+
+        if(!this.keys.containsKey(this.properties.getSigningKeyId())) {
+            throw new BeanInitializationException("The signing key " + this.properties.getSigningKeyId() + " is not configured");
+        }
+    }
+
+    /**
+     * @param user authenticated user
+     * @return signed access token
+     */
+    public String createToken(User user) {
+        Instant now = Instant.now();
+
+        ObjectNode header = this.objectMapper.createObjectNode()
+                .put("alg", "HS256")
+                .put("typ", "JWT")
+                .put("kid", this.properties.getSigningKeyId());
+
+        // iat with milliseconds: a token issued right after a revocation is not revoked
+        ObjectNode claims = this.objectMapper.createObjectNode()
+                .put("sub", user.getLogin())
+                .put("uid", user.getId())
+                .put("iat", now.toEpochMilli() / 1000.0)
+                .put("exp", now.plus(this.properties.getValidity()).getEpochSecond());
+
+        String content = this.encode(header) + "." + this.encode(claims);
+
+        return content + "." + this.sign(this.keys.get(this.properties.getSigningKeyId()), content);
+    }
+
+    /**
+     * @param token access token of a request
+     * @return the authentication of the token, empty if the token is not valid, expired or revoked
+     */
+    public Optional<Authentication> getAuthentication(String token) {
+        String[] parts = token.split("\\.");
+
+        if(parts.length != 3) {
+            return Optional.empty();
+        }
+
+        try {
+            JsonNode header = this.decode(parts[0]);
+            SecretKeySpec key = this.keys.get(header.path("kid").asText());
+
+            // the algorithm is fixed: a token can't select another one (e.g. none)
+            if(key == null || !"HS256".equals(header.path("alg").asText())) {
+                return Optional.empty();
+            }
+
+            byte[] signature = this.sign(key, parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+
+            if(!MessageDigest.isEqual(signature, parts[2].getBytes(StandardCharsets.US_ASCII))) {
+                return Optional.empty();
+            }
+
+            JsonNode claims = this.decode(parts[1]);
+            Instant issuedAt = Instant.ofEpochMilli(Math.round(claims.path("iat").asDouble() * 1000));
+
+            if(Instant.now().getEpochSecond() >= claims.path("exp").asLong()
+                    || this.tokenRevocations.isRevoked(claims.path("uid").asLong(), issuedAt)) {
+                return Optional.empty();
+            }
+
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(claims.path("sub").asText(), token, Collections.emptyList());
+            authentication.setDetails(new TokenDetails(claims.path("uid").asLong()));
+
+            return Optional.of(authentication);
+        } catch (IOException | IllegalArgumentException e) {
+            this.logger.debug("Invalid access token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public long getValiditySeconds() {
+        return this.properties.getValidity().getSeconds();
+    }
+
+    private String encode(JsonNode node) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(this.objectMapper.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new IllegalStateException("Token can not be written", e);
+        }
+    }
+
+    private JsonNode decode(String part) throws IOException {
+        return this.objectMapper.readTree(Base64.getUrlDecoder().decode(part));
+    }
+
+    private String sign(SecretKeySpec key, String content) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(content.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Token can not be signed", e);
+        }
+    }
+
+    /**
+     * Claims of the token available in the Authentication details
+     */
+    public static class TokenDetails {
+
+        private final Long userId;
+
+        private TokenDetails(Long userId) {
+            this.userId = userId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.edtech.plugtify.security;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Component to revoke the access tokens of a user (stateless mode).
+ * The tokens of a user issued before its revocation time are rejected; a revocation only has to live
+ * as long as the token validity, so it is kept in a cache (coherent across replicas in distributed mode).
+ */
+
+@Component
+public class TokenRevocations {
+
+    public static final String REVOKED_TOKENS_CACHE = "revokedTokens";
+
+    private Cache revokedTokensCache;
+
+    public TokenRevocations(CacheManager cacheManager) {
+        this.revokedTokensCache = Objects.requireNonNull(cacheManager.getCache(REVOKED_TOKENS_CACHE));
+    }
+
+    /**
+     * Revoke the tokens issued until now to the user
+     * @param userId user id
+     */
+    public void revoke(Long userId) {
+        this.revokedTokensCache.put(userId, Instant.now().toEpochMilli());
+    }
+
+    /**
+     * @param userId user id of the token
+     * @param issuedAt issue time of the token
+     * @return true if the token was issued before the last revocation of the user
+     */
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        Long revokedAt = this.revokedTokensCache.get(userId, Long.class);
+
+        return revokedAt != null && !issuedAt.isAfter(Instant.ofEpochMilli(revokedAt));
+    }
+}
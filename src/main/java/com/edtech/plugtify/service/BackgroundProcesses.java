@@ -1,234 +1,147 @@
 package com.edtech.plugtify.service;
 
+import com.edtech.plugtify.config.ApplicationProperties;
 import com.edtech.plugtify.domain.Token;
 import com.edtech.plugtify.domain.User;
 import com.edtech.plugtify.repository.UserRepository;
 import com.edtech.plugtify.service.dto.*;
-import com.edtech.plugtify.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableScheduling
 public class BackgroundProcesses {
 
+    private Logger logger = LoggerFactory.getLogger(BackgroundProcesses.class);
+
+    private ApplicationProperties applicationProperties;
     private SpotifyService spotifyService;
     private UserRepository userRepository;
+    private Executor playlistRefreshExecutor;
+    private PlayHistoryService playHistoryService;
+    private SpotifyTokenManager spotifyTokenManager;
+
+    private Timer refreshDuration;
+    private Counter refreshedPlaylists;
+    private Counter failedPlaylists;
 
     public BackgroundProcesses(
+            ApplicationProperties applicationProperties,
             SpotifyService spotifyService,
-            UserRepository userRepository
-
+            UserRepository userRepository,
+            @Qualifier("playlistRefreshExecutor") Executor playlistRefreshExecutor,
+            PlayHistoryService playHistoryService,
+            SpotifyTokenManager spotifyTokenManager,
+            MeterRegistry meterRegistry
     ) {
+        this.applicationProperties = applicationProperties;
         this.spotifyService = spotifyService;
         this.userRepository = userRepository;
+        this.playlistRefreshExecutor = playlistRefreshExecutor;
+        this.playHistoryService = playHistoryService;
+        this.spotifyTokenManager = spotifyTokenManager;
+
+        this.refreshDuration = meterRegistry.timer("plugtify.playlist.refresh.duration");
+        this.refreshedPlaylists = meterRegistry.counter("plugtify.playlist.refresh.users", "result", "success");
+        this.failedPlaylists = meterRegistry.counter("plugtify.playlist.refresh.users", "result", "failure");
     }
 
     @Scheduled(fixedDelay = 3600000)
     private void updatePlaylists() {
-        System.out.println("updatePlaylists() is running");
-
-        // token updated 1 day ago are updated
-        Set<User> users = this.userRepository.findAllTokensByDay(Timestamp.from(Instant.now().minusMillis(24*60*60*1000)));
-
-        users.removeIf(user -> user.getPlaylistId() == null);
-
-        if(users.size() != 0) {
-            users.forEach(this::replacePlaylist);
-        }
-    }
-
-    private void replacePlaylist(User user) {
-        Token userToken = user.getToken();
-
-        if(this.spotifyService.isTokenExpired(userToken)) {
-            this.spotifyService.refreshAccessToken(userToken);
-        }
-
-        ResponseEntity<SpotifyTrackDTO[]> tracksPlayed = this.getRecentlyPlayed(userToken);
-
-        ResponseEntity<SpotifyTrackDTO[]> tracksSuggested = this.getSuggestedPlaylist(tracksPlayed, userToken);
-
-        if(tracksSuggested.hasBody() && tracksSuggested.getStatusCodeValue() == 200) {
-            this.spotifyService.replaceTrackPlaylist(tracksSuggested.getBody(), user.getPlaylistId(), userToken);
-        }
-    }
-
-    /**
-     * Get the recently played tracks by the user
-     * @return response
-     */
-    @SuppressWarnings("unchecked")
-    private ResponseEntity<SpotifyTrackDTO[]> getRecentlyPlayed(Token userToken) {
-
-        HttpHeaders httpHeaders = this.spotifyService.getHttpHeaders(userToken);
-
-        UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_RECENTLY_PLAYED)
-                .queryParam("limit", 50); // query parameter to get the last 50 played tracks
+        this.logger.info("updatePlaylists() is running");
 
-        HttpEntity<MultiValueMap<String, String>> httpEntity = new HttpEntity<>(httpHeaders);
+        Instant start = Instant.now();
+        int batchSize = this.applicationProperties.getPlaylistRefresh().getBatchSize();
 
-        // first, we get the last 50 played tracks -> tracks objects are simplified
-        ResponseEntity<SpotifyItemsDTO> responsePlayHistory =
-                (ResponseEntity<SpotifyItemsDTO>) this.spotifyService.getClientResponseEntity(this.spotifyService.getRequests(urlBuilder.toUriString(), SpotifyItemsDTO.class, httpEntity));
-
-        if(!responsePlayHistory.hasBody()) {
-            throw new InternalServerErrorException("There are not Recently played Tracks for this user");
-        }
-
-        // Second, we get the full objects for each track recently played
-
-        // --> getting the ids from responsePlayHistory for each track and save them in a String variable
-        String ids = Arrays.stream(Objects.requireNonNull(responsePlayHistory.getBody()).getItems()).map(historyObject -> historyObject.getTrack().getId()).collect(Collectors.joining(",")); // separating each id with a ,
-
-        // Third, we get the full track object for each id in the ids variable
-
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_TRACKS)
-                .queryParam("ids", ids);
+        // token updated 1 day ago are updated
+        Timestamp checkTime = Timestamp.from(Instant.now().minusMillis(24*60*60*1000));
 
-        if(ids.length() == 0) {
-            throw new InternalServerErrorException("User doesnt has recently played track");
-        }
+        AtomicInteger failures = new AtomicInteger();
+        int usersCount = 0;
+        int tokensCount = 0;
+        long lastId = 0L;
+        List<User> users;
 
-        ResponseEntity<SpotifyTrackArrayDTO> responseTracks =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.spotifyService.getClientResponseEntity(this.spotifyService.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
+        // users are loaded in fixed size batches, only one batch is in memory at a time
+        do {
+            users = this.userRepository.findPlaylistsToRefresh(checkTime, lastId, PageRequest.of(0, batchSize));
 
-        if(!responseTracks.hasBody()) {
-            throw new InternalServerErrorException("There was a problem getting the full object for each tracks");
-        }
+            this.refreshPlaylists(users, failures);
 
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_FEATURES_TRACKS)
-                .queryParam("ids", ids);
+            // the tokens refreshed for the batch are written together
+            tokensCount += this.spotifyTokenManager.flushDeferredWrites();
 
-        // Forth, we get the features of each track by id
-        ResponseEntity<SpotifyAudioFeatureArrayDTO> responseTracksFeatures =
-                (ResponseEntity<SpotifyAudioFeatureArrayDTO>) this.spotifyService.getClientResponseEntity(this.spotifyService.getRequests(urlBuilder.toUriString(), SpotifyAudioFeatureArrayDTO.class, httpEntity));
+            if(!users.isEmpty()) {
+                lastId = users.get(users.size() - 1).getId();
+            }
 
-        SpotifyTrackDTO[] tracks = Arrays.stream(Objects.requireNonNull(responseTracks.getBody()).getTracks()).peek(track -> {
-            // merge the track with its features
+            usersCount += users.size();
+        } while(users.size() == batchSize);
 
-            SpotifyAudioFeaturesDTO audioFeatures = Arrays.stream(Objects.requireNonNull(responseTracksFeatures.getBody()).getAudio_features())
-                    .filter(trackFeature -> trackFeature.getId().equals(track.getId())).collect(Collectors.toList()).get(0);
+        tokensCount += this.spotifyTokenManager.flushDeferredWritesAndWait();
 
-            track.setAudio_feature(audioFeatures);
+        Duration duration = Duration.between(start, Instant.now());
+        this.refreshDuration.record(duration);
 
-        }).toArray(SpotifyTrackDTO[]::new);
+        this.logger.info("updatePlaylists() refreshed {} playlists, {} failures, in {} ms ({} users/s)",
+                usersCount - failures.get(),
+                failures.get(),
+                duration.toMillis(),
+                String.format("%.2f", usersCount / Math.max(duration.toMillis() / 1000.0, 0.001)));
 
-        return new ResponseEntity<>(tracks, HttpStatus.OK) ;
+        this.logger.info("updatePlaylists() wrote {} refreshed tokens", tokensCount);
+        this.logger.info("updatePlaylists() deleted {} expired plays", this.playHistoryService.deleteExpiredPlays());
     }
 
     /**
-     * Method to get recommended tracks
-     * @return ResponseEntity<SpotifyTrackDTO[]>
+     * Refresh a batch of users on the bounded pool, a failing user doesn't stop the others
+     * @param users batch of users
+     * @param failures failures counter of the run
      */
-    @SuppressWarnings("unchecked")
-    public ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist(ResponseEntity<SpotifyTrackDTO[]> tracksPlayed, Token userToken) {
-        float acousticness = 0.0f;
-        float danceability = 0.0f;
-        float energy = 0.0f;
-        float instrumentalness = 0.0f;
-        float liveness = 0.0f;
-        float speechiness = 0.0f;
-        float valence = 0.0f;
-        int popularity = 0; // --> 0-100 value
-
-        // get average of each audio feature
-
-        if(!tracksPlayed.hasBody()) {
-            throw new InternalServerErrorException("Can't get recently played tracks");
-        }
+    private void refreshPlaylists(List<User> users, AtomicInteger failures) {
+        CompletableFuture<?>[] refreshes = users.stream()
+                .map(user -> CompletableFuture.runAsync(() -> this.refreshPlaylist(user, failures), this.playlistRefreshExecutor))
+                .toArray(CompletableFuture[]::new);
 
-        int cantTracks = Objects.requireNonNull(tracksPlayed.getBody()).length;
-
-        for (SpotifyTrackDTO track: tracksPlayed.getBody()) {
-            acousticness = acousticness + track.getAudio_feature().getAcousticness();
-            danceability = danceability + track.getAudio_feature().getDanceability();
-            energy = energy + track.getAudio_feature().getEnergy();
-            instrumentalness = instrumentalness + track.getAudio_feature().getInstrumentalness();
-            liveness = liveness + track.getAudio_feature().getLiveness();
-            speechiness = speechiness + track.getAudio_feature().getSpeechiness();
-            valence = valence + track.getAudio_feature().getValence();
-            popularity = popularity + track.getPopularity();
-        }
+        CompletableFuture.allOf(refreshes).join();
+    }
 
-        acousticness = acousticness / cantTracks;
-        danceability = danceability / cantTracks;
-        energy = energy / cantTracks;
-        instrumentalness = instrumentalness / cantTracks;
-        liveness = liveness / cantTracks;
-        speechiness = speechiness / cantTracks;
-        valence = valence / cantTracks;
-        popularity = popularity / cantTracks;
-
-        // get 5 random number between 0 and 49 to get the tracks in those indexs, and get the ids
-        Random random = new Random();
-
-        String seedTracks;
-        Set<String> seedsTracks = new HashSet<>();
-
-        if(tracksPlayed.getBody().length < 10) {
-            seedTracks = tracksPlayed.getBody()[0].getId();
-        } else {
-            do {
-                seedsTracks.add(tracksPlayed.getBody()[random.nextInt(tracksPlayed.getBody().length)].getId());
-            } while(seedsTracks.size() < 5);
-
-            seedTracks = String.join(",", seedsTracks);
+    private void refreshPlaylist(User user, AtomicInteger failures) {
+        try {
+            SpotifyRequestPriority.runAs(SpotifyRequestPriority.BACKGROUND,
+                    () -> this.spotifyTokenManager.runWithDeferredWrites(() -> this.replacePlaylist(user)));
+            this.refreshedPlaylists.increment();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            this.failedPlaylists.increment();
+            this.logger.warn("Playlist of user {} can not be refreshed: {}", user.getId(), e.getMessage());
         }
+    }
 
-        HttpHeaders httpHeaders = this.spotifyService.getHttpHeaders(userToken);
-
-        UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_RECOMMENDATIONS)
-                .queryParam("limit", 50)
-                .queryParam("seed_tracks", seedTracks)
-                .queryParam("target_acousticness", acousticness)
-                .queryParam("target_danceability", danceability)
-                .queryParam("target_energy", energy)
-                .queryParam("target_instrumentalness", instrumentalness)
-                .queryParam("target_liveness", liveness)
-                .queryParam("target_speechiness", speechiness)
-                .queryParam("target_valence", valence)
-                .queryParam("min_popularity", popularity);
-
-        HttpEntity<MultiValueMap<String, String>> httpEntity =
-                new HttpEntity<>(httpHeaders);
-
-        // array of tracks simplified
-        ResponseEntity<SpotifyTrackArrayDTO> arrayTracksSimplified =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.spotifyService.getClientResponseEntity(this.spotifyService.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
-
-        List<SpotifyTrackDTO> listTracksSimplified = Arrays.stream(Objects.requireNonNull(arrayTracksSimplified.getBody()).getTracks())
-                .collect(Collectors.toList());
-
-        // removing repeated tracks
-        Arrays.stream(tracksPlayed.getBody()).forEach(spotifyTrackDTO -> listTracksSimplified.removeIf(track -> track.getId().equals(spotifyTrackDTO.getId())));
-
-        String ids = Arrays.stream(listTracksSimplified.toArray(SpotifyTrackDTO[]::new))
-                .map(SpotifyTrackDTO::getId)
-                .collect(Collectors.joining(","));
-
-        // array of full object tracks
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_TRACKS)
-                .queryParam("ids", ids);
+    private void replacePlaylist(User user) {
+        Token userToken = user.getToken();
 
-        ResponseEntity<SpotifyTrackArrayDTO> responseTracks =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.spotifyService.getClientResponseEntity(this.spotifyService.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
+        ResponseEntity<SpotifyTrackDTO[]> tracksSuggested = this.spotifyService.getSuggestedPlaylist(user);
 
-        if(!responseTracks.hasBody()) {
-            throw new InternalServerErrorException("There was a problem getting the full object for each tracks");
+        if(tracksSuggested.hasBody() && tracksSuggested.getStatusCodeValue() == 200) {
+            this.spotifyService.replaceTrackPlaylist(tracksSuggested.getBody(), user.getPlaylistId(), userToken);
         }
-
-        return new ResponseEntity<>(Arrays.stream(Objects.requireNonNull(responseTracks.getBody()).getTracks()).toArray(SpotifyTrackDTO[]::new), HttpStatus.OK) ;
-
     }
-
 }
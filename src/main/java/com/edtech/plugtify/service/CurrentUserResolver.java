@@ -0,0 +1,72 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.domain.User;
+import com.edtech.plugtify.repository.UserRepository;
+import com.edtech.plugtify.security.SecurityUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Component to resolve the users of the current request.
+ * A user is loaded with its token in one query (fetch join), the first time it is asked in a request,
+ * the next lookups of the same request share it (request attribute).
+ * Outside of a request (background processes, async workers) each lookup runs the query.
+ */
+
+@Component
+public class CurrentUserResolver {
+
+    private static final String USER_ATTRIBUTE = CurrentUserResolver.class.getName() + ".user.";
+
+    private UserRepository userRepository;
+
+    public CurrentUserResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @return the authenticated user with its token
+     */
+    public Optional<User> getCurrentUser() {
+        return SecurityUtils.getCurrentUserLogin().flatMap(this::getUser);
+    }
+
+    /**
+     * @param login user login
+     * @return the user with its token
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<User> getUser(String login) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+        if(requestAttributes == null) {
+            return this.userRepository.findOneWithTokenByLogin(login);
+        }
+
+        Object resolved = requestAttributes.getAttribute(USER_ATTRIBUTE + login, RequestAttributes.SCOPE_REQUEST);
+
+        if(resolved != null) {
+            return (Optional<User>) resolved;
+        }
+
+        Optional<User> user = this.userRepository.findOneWithTokenByLogin(login);
+        requestAttributes.setAttribute(USER_ATTRIBUTE + login, user, RequestAttributes.SCOPE_REQUEST);
+
+        return user;
+    }
+
+    /**
+     * Forget the user resolved in the current request, e.g. after it is deleted
+     * @param login user login
+     */
+    public void evict(String login) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+        if(requestAttributes != null) {
+            requestAttributes.removeAttribute(USER_ATTRIBUTE + login, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.edtech.plugtify.service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest neighbours index (HNSW: hierarchical navigable small world graphs).
+ * Each vector is a node linked to its nearest nodes in one or more layers, upper layers are sparser;
+ * a search goes down the layers from the entry point and explores the graph of the bottom layer,
+ * so it visits a few thousands of nodes instead of all of them.
+ * -- inserts are incremental (write lock), searches run in parallel (read lock)
+ * -- the graph can be saved to and loaded from a snapshot file
+ */
+
+public class HnswIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x484e5357; // HNSW
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int dimensions;
+    private final int m; // links per node in the upper layers, 2 * m in the bottom layer
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random(42);
+
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private Node[] nodes = new Node[1024];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private boolean dirty;
+
+    public HnswIndex(int dimensions, int m, int efConstruction) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * Insert a vector, the features of a track don't change so an existing track is not replaced
+     * @param trackId track id
+     * @param vector vector of the track
+     * @param popularity 0-100 value
+     * @return true if the track is new
+     */
+    public boolean insert(String trackId, float[] vector, int popularity) {
+        this.lock.writeLock().lock();
+
+        try {
+            if(this.nodeIds.containsKey(trackId)) {
+                return false;
+            }
+
+            int level = (int) (-Math.log(1 - this.random.nextDouble()) * this.levelMultiplier);
+            int nodeId = this.addNode(new Node(trackId, vector.clone(), popularity, level, this.m));
+            this.dirty = true;
+
+            if(this.entryPoint < 0) {
+                this.entryPoint = nodeId;
+                this.maxLevel = level;
+                return true;
+            }
+
+            int current = this.entryPoint;
+
+            for (int layer = this.maxLevel; layer > level; layer--) {
+                current = this.searchLayer(vector, current, 1, layer).get(0).node;
+            }
+
+            for (int layer = Math.min(level, this.maxLevel); layer >= 0; layer--) {
+                List<Candidate> neighbours = this.searchLayer(vector, current, this.efConstruction, layer);
+                int maxLinks = this.getMaxLinks(layer);
+
+                for (int i = 0; i < neighbours.size() && i < maxLinks; i++) {
+                    this.nodes[nodeId].addLink(layer, neighbours.get(i).node);
+                    this.connect(neighbours.get(i).node, nodeId, layer);
+                }
+
+                current = neighbours.get(0).node;
+            }
+
+            if(level > this.maxLevel) {
+                this.maxLevel = level;
+                this.entryPoint = nodeId;
+            }
+
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String trackId) {
+        this.lock.readLock().lock();
+
+        try {
+            return this.nodeIds.containsKey(trackId);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+
+        try {
+            return this.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate nearest tracks to the query
+     * @param query vector
+     * @param k max number of tracks
+     * @param ef candidates explored in the bottom layer, more is slower with a better recall
+     * @param minPopularity tracks less popular are ignored
+     * @param excluded track ids to ignore
+     * @return track ids, the nearest first
+     */
+    public List<String> search(float[] query, int k, int ef, int minPopularity, Set<String> excluded) {
+        Predicate<Node> accepted = node -> node.popularity >= minPopularity && !excluded.contains(node.trackId);
+
+        this.lock.readLock().lock();
+
+        try {
+            if(this.entryPoint < 0) {
+                return List.of();
+            }
+
+            int current = this.entryPoint;
+
+            for (int layer = this.maxLevel; layer > 0; layer--) {
+                current = this.searchLayer(query, current, 1, layer).get(0).node;
+            }
+
+            List<String> nearest = new ArrayList<>(k);
+
+            // the filtered nodes are part of the candidates: explore more nodes when too many are filtered
+            for (int candidates = Math.max(ef, k); nearest.size() < k; candidates *= 2) {
+                nearest.clear();
+
+                for (Candidate candidate : this.searchLayer(query, current, candidates, 0)) {
+                    Node node = this.nodes[candidate.node];
+
+                    if(accepted.test(node) && nearest.size() < k) {
+                        nearest.add(node.trackId);
+                    }
+                }
+
+                if(candidates >= this.size) {
+                    break;
+                }
+            }
+
+            return nearest;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the graph to the given file if it changed since the last snapshot
+     * @param path snapshot file, it is replaced atomically
+     * @return true if the snapshot was written
+     */
+    public boolean saveIfDirty(Path path) throws IOException {
+        // read lock: searches go on, inserts wait until the graph is written
+        this.lock.readLock().lock();
+
+        try {
+            if(!this.dirty) {
+                return false;
+            }
+
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path temporaryFile = Files.createTempFile(path.toAbsolutePath().getParent(), "hnsw", ".tmp");
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(SNAPSHOT_MAGIC);
+                output.writeInt(SNAPSHOT_VERSION);
+                output.writeInt(this.dimensions);
+                output.writeInt(this.m);
+                output.writeInt(this.size);
+                output.writeInt(this.entryPoint);
+                output.writeInt(this.maxLevel);
+
+                for (int nodeId = 0; nodeId < this.size; nodeId++) {
+                    this.nodes[nodeId].write(output);
+                }
+            }
+
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.dirty = false;
+
+            return true;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read a graph written by saveIfDirty
+     * @return the index, or empty if the file doesn't exist or was written with other dimensions or m
+     */
+    public static Optional<HnswIndex> load(Path path, int dimensions, int m, int efConstruction) throws IOException {
+        if(!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if(input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION
+                    || input.readInt() != dimensions || input.readInt() != m) {
+                return Optional.empty();
+            }
+
+            HnswIndex index = new HnswIndex(dimensions, m, efConstruction);
+            int size = input.readInt();
+            index.entryPoint = input.readInt();
+            index.maxLevel = input.readInt();
+
+            for (int nodeId = 0; nodeId < size; nodeId++) {
+                index.addNode(Node.read(input, dimensions, m));
+            }
+
+            return Optional.of(index);
+        }
+    }
+
+    private int addNode(Node node) {
+        if(this.size == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+        }
+
+        this.nodes[this.size] = node;
+        this.nodeIds.put(node.trackId, this.size);
+
+        return this.size++;
+    }
+
+    /**
+     * Link the node to the new node, if the node has all its links the farthest one is dropped
+     */
+    private void connect(int nodeId, int newNodeId, int layer) {
+        Node node = this.nodes[nodeId];
+        int maxLinks = this.getMaxLinks(layer);
+
+        if(node.linkCounts[layer] < maxLinks) {
+            node.addLink(layer, newNodeId);
+            return;
+        }
+
+        List<Candidate> links = new ArrayList<>(maxLinks + 1);
+        links.add(new Candidate(newNodeId, this.distance(node.vector, this.nodes[newNodeId].vector)));
+
+        for (int i = 0; i < maxLinks; i++) {
+            int linkedNode = node.links[layer][i];
+            links.add(new Candidate(linkedNode, this.distance(node.vector, this.nodes[linkedNode].vector)));
+        }
+
+        links.sort(Comparator.comparingDouble(candidate -> candidate.distance));
+        node.linkCounts[layer] = 0;
+
+        for (int i = 0; i < maxLinks; i++) {
+            node.addLink(layer, links.get(i).node);
+        }
+    }
+
+    /**
+     * Best first search of one layer
+     * @return the ef nearest nodes found, the nearest first
+     */
+    private List<Candidate> searchLayer(float[] query, int entryNode, int ef, int layer) {
+        Comparator<Candidate> byDistance = Comparator.comparingDouble(candidate -> candidate.distance);
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(byDistance);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(byDistance.reversed()); // the root is the farthest result
+        Set<Integer> visited = new HashSet<>();
+
+        Candidate entry = new Candidate(entryNode, this.distance(query, this.nodes[entryNode].vector));
+        candidates.add(entry);
+        results.add(entry);
+        visited.add(entryNode);
+
+        while(!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+
+            if(results.size() >= ef && closest.distance > results.peek().distance) {
+                break; // the nearest candidate is farther than all the results
+            }
+
+            Node node = this.nodes[closest.node];
+
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+
+                if(!visited.add(neighbour)) {
+                    continue;
+                }
+
+                float distance = this.distance(query, this.nodes[neighbour].vector);
+
+                if(results.size() < ef || distance < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, distance);
+                    candidates.add(candidate);
+                    results.add(candidate);
+
+                    if(results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> nearest = new ArrayList<>(results);
+        nearest.sort(byDistance);
+
+        return nearest;
+    }
+
+    private int getMaxLinks(int layer) {
+        return layer == 0 ? this.m * 2 : this.m;
+    }
+
+    private float distance(float[] a, float[] b) {
+        float distance = 0;
+
+        for (int i = 0; i < this.dimensions; i++) {
+            float difference = a[i] - b[i];
+            distance += difference * difference;
+        }
+
+        return distance;
+    }
+
+    private static class Candidate {
+
+        private final int node;
+        private final float distance;
+
+        private Candidate(int node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    private static class Node {
+
+        private final String trackId;
+        private final float[] vector;
+        private final int popularity;
+        private final int[][] links; // links[layer][i]
+        private final int[] linkCounts;
+
+        private Node(String trackId, float[] vector, int popularity, int level, int m) {
+            this.trackId = trackId;
+            this.vector = vector;
+            this.popularity = popularity;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+
+            for (int layer = 0; layer <= level; layer++) {
+                this.links[layer] = new int[layer == 0 ? m * 2 : m];
+            }
+        }
+
+        private void addLink(int layer, int nodeId) {
+            this.links[layer][this.linkCounts[layer]++] = nodeId;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(this.trackId);
+            output.writeInt(this.popularity);
+
+            for (float value : this.vector) {
+                output.writeFloat(value);
+            }
+
+            output.writeInt(this.links.length - 1);
+
+            for (int layer = 0; layer < this.links.length; layer++) {
+                output.writeInt(this.linkCounts[layer]);
+
+                for (int i = 0; i < this.linkCounts[layer]; i++) {
+                    output.writeInt(this.links[layer][i]);
+                }
+            }
+        }
+
+        private static Node read(DataInputStream input, int dimensions, int m) throws IOException {
+            String trackId = input.readUTF();
+            int popularity = input.readInt();
+            float[] vector = new float[dimensions];
+
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = input.readFloat();
+            }
+
+            Node node = new Node(trackId, vector, popularity, input.readInt(), m);
+
+            for (int layer = 0; layer < node.links.length; layer++) {
+                int linkCount = input.readInt();
+
+                for (int i = 0; i < linkCount; i++) {
+                    node.addLink(layer, input.readInt());
+                }
+            }
+
+            return node;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Component to recommend tracks without requests to Spotify:
+ * nearest neighbours of the user taste profile in the audio features of the stored tracks.
+ */
+
+@Component
+public class LocalRecommendationEngine {
+
+    private ApplicationProperties applicationProperties;
+    private TrackFeatureStore trackFeatureStore;
+
+    public LocalRecommendationEngine(ApplicationProperties applicationProperties, TrackFeatureStore trackFeatureStore) {
+        this.applicationProperties = applicationProperties;
+        this.trackFeatureStore = trackFeatureStore;
+    }
+
+    /**
+     * @param taste taste profile of the user
+     * @param playedIds played tracks, they are not recommended
+     * @param limit max number of tracks
+     * @return recommended track ids, the nearest first; empty if the user or the local catalog is too cold,
+     *         then the caller should use the Spotify recommendations
+     */
+    public List<String> recommend(TasteProfileService.Taste taste, Collection<String> playedIds, int limit) {
+        ApplicationProperties.Recommendations properties = this.applicationProperties.getRecommendations();
+
+        if(taste.getPlays() < properties.getMinProfileTracks()) {
+            return List.of();
+        }
+
+        List<String> trackIds = this.trackFeatureStore.getNearest(taste.getFeatureMeans(), taste.getPopularity(), limit, new HashSet<>(playedIds));
+
+        if(trackIds.size() < properties.getMinCandidates()) {
+            return List.of();
+        }
+
+        return trackIds;
+    }
+}
@@ -0,0 +1,254 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.PlayHistory;
+import com.edtech.plugtify.domain.User;
+import com.edtech.plugtify.repository.PlayHistoryRepository;
+import com.edtech.plugtify.service.dto.SpotifyItemsDTO;
+import com.edtech.plugtify.service.dto.SpotifyPlayHistoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Component to manage the play history of the users.
+ * Only the plays after the last stored play are requested to Spotify (after cursor),
+ * the recently played tracks and the suggestions are read from the local store.
+ * In async mode the pages are requested through the SpotifyAsyncClient (ingestAsync).
+ */
+
+@Service
+public class PlayHistoryService {
+
+    private static final int PAGE_SIZE = 50; // max limit of the recently played endpoint
+
+    private Logger logger = LoggerFactory.getLogger(PlayHistoryService.class);
+
+    private ApplicationProperties applicationProperties;
+    private PlayHistoryRepository playHistoryRepository;
+    private RestTemplate spotifyRestTemplate;
+    private SpotifyTokenManager spotifyTokenManager;
+    private SpotifyAsyncClient spotifyAsyncClient;
+    private TransactionTemplate newTransaction;
+
+    public PlayHistoryService(
+            ApplicationProperties applicationProperties,
+            PlayHistoryRepository playHistoryRepository,
+            RestTemplate spotifyRestTemplate,
+            SpotifyTokenManager spotifyTokenManager,
+            SpotifyAsyncClient spotifyAsyncClient,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.applicationProperties = applicationProperties;
+        this.playHistoryRepository = playHistoryRepository;
+        this.spotifyRestTemplate = spotifyRestTemplate;
+        this.spotifyTokenManager = spotifyTokenManager;
+        this.spotifyAsyncClient = spotifyAsyncClient;
+
+        // the new plays are stored in their own transaction,
+        // a concurrent ingestion of the same plays must not roll back the caller transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ingest the new plays of the user and get the last plays
+     * @param user user with token
+     * @param limit max number of plays
+     * @return track ids of the last plays, the most recent first (a track can be repeated)
+     */
+    public List<String> getRecentTrackIds(User user, int limit) {
+        this.ingest(user);
+
+        return this.getStoredRecentTrackIds(user, limit);
+    }
+
+    /**
+     * Get the last plays of the stored history (call ingest first to include the new plays)
+     * @param user user
+     * @param limit max number of plays
+     * @return track ids of the last plays, the most recent first (a track can be repeated)
+     */
+    public List<String> getStoredRecentTrackIds(User user, int limit) {
+        return this.playHistoryRepository.findByUserIdOrderByPlayedAtDesc(user.getId(), PageRequest.of(0, limit))
+                .stream()
+                .map(PlayHistory::getTrackId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the last played tracks of the stored history (call ingest first to include the new plays)
+     * @param user user
+     * @param maxTracks max number of distinct tracks
+     * @return distinct track ids of the last profile-plays plays, the most recent first
+     */
+    public List<String> getProfileTrackIds(User user, int maxTracks) {
+        int profilePlays = this.applicationProperties.getPlayHistory().getProfilePlays();
+
+        return this.playHistoryRepository.findByUserIdOrderByPlayedAtDesc(user.getId(), PageRequest.of(0, profilePlays))
+                .stream()
+                .map(PlayHistory::getTrackId)
+                .distinct()
+                .limit(maxTracks)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Request to Spotify the plays after the last stored play and store them
+     * @param user user with token
+     */
+    public void ingest(User user) {
+        Ingestion ingestion = new Ingestion(user);
+
+        while (ingestion.hasNextPage()) {
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.add("Authorization", this.spotifyTokenManager.getAuthorization(user.getToken()));
+
+            ingestion.accept(this.spotifyRestTemplate.exchange(this.getRecentlyPlayedUrl(ingestion.after), HttpMethod.GET,
+                    new HttpEntity<>(httpHeaders), SpotifyItemsDTO.class).getBody());
+        }
+
+        ingestion.store();
+    }
+
+    /**
+     * Async version of ingest: the pages are requested one after the other, no thread waits between them
+     * @param user user with token
+     * @return completed when the new plays are stored
+     */
+    public CompletableFuture<Void> ingestAsync(User user) {
+        Ingestion ingestion = new Ingestion(user);
+
+        return this.requestPagesAsync(ingestion).thenRun(ingestion::store);
+    }
+
+    /**
+     * Delete the plays older than the retention
+     * @return deleted plays
+     */
+    public int deleteExpiredPlays() {
+        Duration retention = this.applicationProperties.getPlayHistory().getRetention();
+
+        return this.playHistoryRepository.deleteByPlayedAtBefore(Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    private String getArtistId(SpotifyPlayHistoryDTO item) {
+        if(item.getTrack().getArtists() == null || item.getTrack().getArtists().length == 0) {
+            return null;
+        }
+
+        return item.getTrack().getArtists()[0].getId();
+    }
+
+    private CompletableFuture<Void> requestPagesAsync(Ingestion ingestion) {
+        if(!ingestion.hasNextPage()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return this.spotifyTokenManager.getAuthorizationAsync(ingestion.user.getToken())
+                .thenCompose(authorization -> {
+                    HttpHeaders httpHeaders = new HttpHeaders();
+                    httpHeaders.add("Authorization", authorization);
+
+                    return this.spotifyAsyncClient.exchange(this.getRecentlyPlayedUrl(ingestion.after), HttpMethod.GET,
+                            new HttpEntity<>(httpHeaders), SpotifyItemsDTO.class);
+                })
+                .thenCompose(response -> {
+                    ingestion.accept(response.getBody());
+                    return this.requestPagesAsync(ingestion);
+                });
+    }
+
+    private String getRecentlyPlayedUrl(String after) {
+        UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_RECENTLY_PLAYED)
+                .queryParam("limit", PAGE_SIZE);
+
+        if(after != null) {
+            urlBuilder.queryParam("after", after);
+        }
+
+        return urlBuilder.toUriString();
+    }
+
+    /**
+     * New plays of a user collected page by page (at most play-history.max-pages), then stored in one transaction
+     */
+    private class Ingestion {
+
+        private final User user;
+        private final Timestamp lastPlayedAt;
+        private final List<PlayHistory> newPlays = new ArrayList<>();
+
+        private String after;
+        private int pages = 0;
+        private boolean lastPage = false;
+
+        private Ingestion(User user) {
+            this.user = user;
+            this.lastPlayedAt = playHistoryRepository.findLastPlayedAt(user.getId());
+            this.after = this.lastPlayedAt != null ? String.valueOf(this.lastPlayedAt.getTime()) : null;
+        }
+
+        private boolean hasNextPage() {
+            return !this.lastPage && this.pages < applicationProperties.getPlayHistory().getMaxPages();
+        }
+
+        private void accept(SpotifyItemsDTO response) {
+            this.pages++;
+
+            if(response == null || response.getItems() == null) {
+                this.lastPage = true;
+                return;
+            }
+
+            for (SpotifyPlayHistoryDTO item : response.getItems()) {
+                if(item.getTrack() == null || item.getTrack().getId() == null || item.getPlayed_at() == null) {
+                    continue; // local tracks don't have id
+                }
+
+                if(this.lastPlayedAt == null || item.getPlayed_at().after(this.lastPlayedAt)) {
+                    this.newPlays.add(new PlayHistory(this.user.getId(), item.getTrack().getId(), getArtistId(item), item.getPlayed_at()));
+                }
+            }
+
+            // without a cursor there is only the last page (last 50 plays)
+            if(this.after == null || response.getItems().length < PAGE_SIZE
+                    || response.getCursors() == null || response.getCursors().getAfter() == null) {
+                this.lastPage = true;
+                return;
+            }
+
+            this.after = response.getCursors().getAfter();
+        }
+
+        private void store() {
+            if(this.newPlays.isEmpty()) {
+                return;
+            }
+
+            try {
+                newTransaction.execute(status -> playHistoryRepository.saveAll(this.newPlays));
+            } catch (DataIntegrityViolationException e) {
+                // the same plays were stored by a concurrent ingestion of the user
+                logger.debug("Plays of user {} already ingested", this.user.getId());
+            }
+        }
+    }
+}
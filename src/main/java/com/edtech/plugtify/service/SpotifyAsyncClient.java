@@ -0,0 +1,49 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Component to send the Spotify requests of the async mode.
+ * Each request runs on the spotifyExecutor through the spotifyRestTemplate (rate limit, bulkheads, circuit breakers),
+ * the callers compose the returned futures: a thread is only held while an exchange is on the wire,
+ * never between the requests of a call chain.
+ * A request rejected by the full spotifyExecutor fails with SpotifyUnavailableException.
+ */
+
+@Component
+public class SpotifyAsyncClient {
+
+    private RestTemplate spotifyRestTemplate;
+    private Executor spotifyExecutor;
+
+    public SpotifyAsyncClient(
+            RestTemplate spotifyRestTemplate,
+            @Qualifier("spotifyExecutor") Executor spotifyExecutor
+    ) {
+        this.spotifyRestTemplate = spotifyRestTemplate;
+        this.spotifyExecutor = spotifyExecutor;
+    }
+
+    /**
+     * @see RestTemplate#exchange(String, HttpMethod, HttpEntity, Class, Object...)
+     * @return the pending response
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method, HttpEntity<?> httpEntity, Class<T> responseType) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> this.spotifyRestTemplate.exchange(url, method, httpEntity, responseType), this.spotifyExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new SpotifyUnavailableException("Spotify request rejected: too many Spotify requests"));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.edtech.plugtify.service;
+
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalescer of the lookups by id of a Spotify multi-id endpoint (e.g. /v1/tracks?ids=).
+ * -- the ids requested by every caller during a short window are merged in one batch
+ * -- an id already requested (pending or in flight) is not requested again, its callers share the result
+ * -- a batch is sent as soon as it reaches the max ids of the endpoint, so a call never exceeds it
+ * -- a batch runs as INTERACTIVE if any of its callers is interactive, otherwise as BACKGROUND
+ * -- a 400 response is isolated to the invalid ids: the batch is split until they are found
+ * @param <T> type of the values returned by the endpoint
+ */
+
+public class SpotifyBatchLoader<T> {
+
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Function<List<String>, Map<String, T>> batchCall;
+    private final Executor executor;
+    private final ScheduledExecutorService flushScheduler;
+
+    // guarded by this
+    private final Map<String, CompletableFuture<T>> inFlight = new HashMap<>();
+    private Batch pending = new Batch();
+    private boolean flushScheduled = false;
+
+    /**
+     * @param maxBatchSize max ids per call of the endpoint
+     * @param window time a batch waits for more ids
+     * @param batchCall request to the endpoint, returns the values by id (ids without value can be missing)
+     * @param executor executor of the requests, it must reject the batches it can't take (not run them in the caller)
+     * @param flushScheduler scheduler of the windows
+     */
+    public SpotifyBatchLoader(
+            int maxBatchSize,
+            Duration window,
+            Function<List<String>, Map<String, T>> batchCall,
+            Executor executor,
+            ScheduledExecutorService flushScheduler
+    ) {
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.batchCall = batchCall;
+        this.executor = executor;
+        this.flushScheduler = flushScheduler;
+    }
+
+    /**
+     * @param ids ids to load
+     * @return the pending values by id, ids without value are not in the map
+     */
+    public CompletableFuture<Map<String, T>> load(Collection<String> ids) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        List<Batch> fullBatches = new ArrayList<>();
+        boolean interactive = SpotifyRequestPriority.current() == SpotifyRequestPriority.INTERACTIVE;
+        boolean scheduleFlush = false;
+
+        synchronized (this) {
+            for (String id : ids) {
+                if(futures.containsKey(id)) {
+                    continue;
+                }
+
+                CompletableFuture<T> future = this.inFlight.get(id);
+
+                if(future == null) {
+                    future = new CompletableFuture<>();
+                    this.inFlight.put(id, future);
+                    this.pending.add(id, future);
+
+                    if(this.pending.size() == this.maxBatchSize) {
+                        fullBatches.add(this.pending);
+                        this.pending = new Batch();
+                    }
+                }
+
+                if(interactive) {
+                    // the caller also waits for the ids requested by the pending batch of other callers
+                    this.pending.interactive = this.pending.interactive || this.pending.contains(id);
+                }
+
+                futures.put(id, future);
+            }
+
+            if(this.pending.size() > 0 && !this.flushScheduled) {
+                this.flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+
+        for (Batch batch : fullBatches) {
+            batch.interactive = batch.interactive || interactive;
+            this.send(batch);
+        }
+
+        if(scheduleFlush) {
+            this.flushScheduler.schedule(this::flush, this.windowNanos, TimeUnit.NANOSECONDS);
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<String, T> values = new HashMap<>();
+
+            futures.forEach((id, future) -> {
+                T value = future.join();
+
+                if(value != null) {
+                    values.put(id, value);
+                }
+            });
+
+            return values;
+        });
+    }
+
+    private void flush() {
+        Batch batch;
+
+        synchronized (this) {
+            batch = this.pending;
+            this.pending = new Batch();
+            this.flushScheduled = false;
+        }
+
+        if(batch.size() > 0) {
+            this.send(batch);
+        }
+    }
+
+    private void send(Batch batch) {
+        SpotifyRequestPriority priority = batch.interactive ? SpotifyRequestPriority.INTERACTIVE : SpotifyRequestPriority.BACKGROUND;
+
+        try {
+            this.executor.execute(() -> SpotifyRequestPriority.runAs(priority, () -> this.call(batch)));
+        } catch (RuntimeException e) {
+            // e.g. RejectedExecutionException: the callers fail instead of waiting
+            Map<String, RuntimeException> errors = new HashMap<>();
+            batch.ids.forEach(id -> errors.put(id, e));
+
+            this.complete(batch, Map.of(), errors);
+        }
+    }
+
+    private void call(Batch batch) {
+        Map<String, T> values = new HashMap<>();
+        Map<String, RuntimeException> errors = new HashMap<>();
+
+        this.call(batch.ids, values, errors);
+        this.complete(batch, values, errors);
+    }
+
+    /**
+     * One invalid id fails the whole request with a 400, so the ids are split in halves until the invalid ones
+     * are found: only their callers fail, in a few more requests than the invalid ids
+     */
+    private void call(List<String> ids, Map<String, T> values, Map<String, RuntimeException> errors) {
+        try {
+            values.putAll(this.batchCall.apply(ids));
+        } catch (HttpClientErrorException.BadRequest e) {
+            if(ids.size() == 1) {
+                errors.put(ids.get(0), e);
+                return;
+            }
+
+            int half = ids.size() / 2;
+
+            this.call(ids.subList(0, half), values, errors);
+            this.call(ids.subList(half, ids.size()), values, errors);
+        } catch (RuntimeException e) {
+            ids.forEach(id -> errors.put(id, e));
+        }
+    }
+
+    private void complete(Batch batch, Map<String, T> values, Map<String, RuntimeException> errors) {
+        synchronized (this) {
+            batch.ids.forEach(this.inFlight::remove);
+        }
+
+        for (int i = 0; i < batch.ids.size(); i++) {
+            RuntimeException error = errors.get(batch.ids.get(i));
+
+            if(error != null) {
+                batch.futures.get(i).completeExceptionally(error);
+            } else {
+                batch.futures.get(i).complete(values.get(batch.ids.get(i)));
+            }
+        }
+    }
+
+    private class Batch {
+
+        private final List<String> ids = new ArrayList<>();
+        private final List<CompletableFuture<T>> futures = new ArrayList<>();
+        private final Set<String> idSet = new HashSet<>();
+        private boolean interactive = false;
+
+        private void add(String id, CompletableFuture<T> future) {
+            this.ids.add(id);
+            this.futures.add(future);
+            this.idSet.add(id);
+        }
+
+        private boolean contains(String id) {
+            return this.idSet.contains(id);
+        }
+
+        private int size() {
+            return this.ids.size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Component to cache the Spotify catalog by track id.
+ * Full track objects and audio features don't change for a given track id, so they are shared by all users.
+ */
+
+@Component
+public class SpotifyCatalogCache {
+
+    public static final String TRACKS_CACHE = "spotifyTracks";
+    public static final String AUDIO_FEATURES_CACHE = "spotifyAudioFeatures";
+
+    private Cache tracksCache;
+    private Cache audioFeaturesCache;
+
+    public SpotifyCatalogCache(CacheManager cacheManager) {
+        this.tracksCache = Objects.requireNonNull(cacheManager.getCache(TRACKS_CACHE));
+        this.audioFeaturesCache = Objects.requireNonNull(cacheManager.getCache(AUDIO_FEATURES_CACHE));
+    }
+
+    /**
+     * @param ids track ids
+     * @return the cached tracks by id, ids that are not in cache are not in the map
+     */
+    public Map<String, SpotifyTrackDTO> getTracks(Collection<String> ids) {
+        return this.getAll(this.tracksCache, ids, SpotifyTrackDTO.class);
+    }
+
+    public void putTracks(SpotifyTrackDTO[] tracks) {
+        for (SpotifyTrackDTO track : tracks) {
+            if(track != null && track.getId() != null) {
+                this.tracksCache.put(track.getId(), track);
+            }
+        }
+    }
+
+    /**
+     * @param ids track ids
+     * @return the cached audio features by track id, ids that are not in cache are not in the map
+     */
+    public Map<String, SpotifyAudioFeaturesDTO> getAudioFeatures(Collection<String> ids) {
+        return this.getAll(this.audioFeaturesCache, ids, SpotifyAudioFeaturesDTO.class);
+    }
+
+    public void putAudioFeatures(SpotifyAudioFeaturesDTO[] audioFeatures) {
+        for (SpotifyAudioFeaturesDTO audioFeature : audioFeatures) {
+            // null features (local tracks) are not cached
+            if(audioFeature != null && audioFeature.getId() != null) {
+                this.audioFeaturesCache.put(audioFeature.getId(), audioFeature);
+            }
+        }
+    }
+
+    private <T> Map<String, T> getAll(Cache cache, Collection<String> ids, Class<T> type) {
+        Map<String, T> values = new HashMap<>();
+
+        for (String id : ids) {
+            T value = cache.get(id, type);
+
+            if(value != null) {
+                values.put(id, value);
+            }
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,187 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.config.VirtualThreads;
+import com.edtech.plugtify.service.dto.SpotifyAudioFeatureArrayDTO;
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackArrayDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Component to load the Spotify catalog (full tracks and audio features) by track id.
+ * -- the ids in the SpotifyCatalogCache are not requested
+ * -- the other ids of all the concurrent requests are coalesced in batches of the max ids of each endpoint
+ *    (50 tracks, 100 audio features), see SpotifyBatchLoader
+ * -- the catalog is not user data, so the batches are sent with the client credentials token of the application
+ * -- the batches are sent by a bounded pool of their own: the flush thread never sends a batch itself,
+ *    a batch that doesn't fit in the queue fails its callers
+ */
+
+@Component
+public class SpotifyCatalogLoader {
+
+    private RestTemplate spotifyRestTemplate;
+    private SpotifyTokenManager spotifyTokenManager;
+    private SpotifyCatalogCache spotifyCatalogCache;
+
+    private ScheduledExecutorService flushScheduler;
+    private ThreadPoolExecutor sendExecutor;
+    private SpotifyBatchLoader<SpotifyTrackDTO> tracksLoader;
+    private SpotifyBatchLoader<SpotifyAudioFeaturesDTO> audioFeaturesLoader;
+
+    public SpotifyCatalogLoader(
+            ApplicationProperties applicationProperties,
+            RestTemplate spotifyRestTemplate,
+            SpotifyTokenManager spotifyTokenManager,
+            SpotifyCatalogCache spotifyCatalogCache
+    ) {
+        this.spotifyRestTemplate = spotifyRestTemplate;
+        this.spotifyTokenManager = spotifyTokenManager;
+        this.spotifyCatalogCache = spotifyCatalogCache;
+
+        ApplicationProperties.Spotify.Batch properties = applicationProperties.getSpotify().getBatch();
+
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spotify-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger senders = new AtomicInteger();
+        ThreadFactory senderFactory = applicationProperties.getVirtualThreads().isEnabled()
+                ? VirtualThreads.threadFactory("spotify-batch-send-")
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "spotify-batch-send-" + senders.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+
+        // AbortPolicy: the rejected batch fails its callers (SpotifyBatchLoader)
+        this.sendExecutor = new ThreadPoolExecutor(properties.getSenders(), properties.getSenders(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), senderFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.sendExecutor.allowCoreThreadTimeOut(true);
+
+        this.tracksLoader = new SpotifyBatchLoader<>(properties.getMaxTracks(), properties.getWindow(),
+                this::requestTracks, this.sendExecutor, this.flushScheduler);
+
+        this.audioFeaturesLoader = new SpotifyBatchLoader<>(properties.getMaxAudioFeatures(), properties.getWindow(),
+                this::requestAudioFeatures, this.sendExecutor, this.flushScheduler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.flushScheduler.shutdownNow();
+        this.sendExecutor.shutdownNow();
+    }
+
+    /**
+     * @param trackIds track ids
+     * @return the pending full tracks by id, unknown tracks are not in the map
+     */
+    public CompletableFuture<Map<String, SpotifyTrackDTO>> getTracks(Collection<String> trackIds) {
+        Map<String, SpotifyTrackDTO> tracks = this.spotifyCatalogCache.getTracks(trackIds);
+        Set<String> missingIds = this.getMissingIds(trackIds, tracks);
+
+        if(missingIds.isEmpty()) {
+            return CompletableFuture.completedFuture(tracks);
+        }
+
+        return this.tracksLoader.load(missingIds).thenApply(loaded -> {
+            tracks.putAll(loaded);
+            return tracks;
+        });
+    }
+
+    /**
+     * @param trackIds track ids
+     * @return the pending audio features by track id, tracks without features are not in the map
+     */
+    public CompletableFuture<Map<String, SpotifyAudioFeaturesDTO>> getAudioFeatures(Collection<String> trackIds) {
+        Map<String, SpotifyAudioFeaturesDTO> audioFeatures = this.spotifyCatalogCache.getAudioFeatures(trackIds);
+        Set<String> missingIds = this.getMissingIds(trackIds, audioFeatures);
+
+        if(missingIds.isEmpty()) {
+            return CompletableFuture.completedFuture(audioFeatures);
+        }
+
+        return this.audioFeaturesLoader.load(missingIds).thenApply(loaded -> {
+            audioFeatures.putAll(loaded);
+            return audioFeatures;
+        });
+    }
+
+    private Map<String, SpotifyTrackDTO> requestTracks(List<String> trackIds) {
+        SpotifyTrackArrayDTO response = this.request(SpotifyConstants.URL_TRACKS, trackIds, SpotifyTrackArrayDTO.class);
+
+        if(response == null || response.getTracks() == null) {
+            return Map.of();
+        }
+
+        this.spotifyCatalogCache.putTracks(response.getTracks());
+
+        Map<String, SpotifyTrackDTO> tracks = new HashMap<>();
+
+        for (SpotifyTrackDTO track : response.getTracks()) {
+            if(track != null && track.getId() != null) {
+                tracks.put(track.getId(), track);
+            }
+        }
+
+        return tracks;
+    }
+
+    private Map<String, SpotifyAudioFeaturesDTO> requestAudioFeatures(List<String> trackIds) {
+        SpotifyAudioFeatureArrayDTO response = this.request(SpotifyConstants.URL_FEATURES_TRACKS, trackIds, SpotifyAudioFeatureArrayDTO.class);
+
+        // tracks without features are merged with a null audio feature
+        if(response == null || response.getAudio_features() == null) {
+            return Map.of();
+        }
+
+        this.spotifyCatalogCache.putAudioFeatures(response.getAudio_features());
+
+        Map<String, SpotifyAudioFeaturesDTO> audioFeatures = new HashMap<>();
+
+        for (SpotifyAudioFeaturesDTO audioFeature : response.getAudio_features()) {
+            if(audioFeature != null && audioFeature.getId() != null) {
+                audioFeatures.put(audioFeature.getId(), audioFeature);
+            }
+        }
+
+        return audioFeatures;
+    }
+
+    private <T> T request(String urlEndPoint, List<String> ids, Class<T> object) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("Authorization", this.spotifyTokenManager.getClientAuthorization());
+
+        String url = UriComponentsBuilder.fromHttpUrl(urlEndPoint)
+                .queryParam("ids", String.join(",", ids))
+                .toUriString();
+
+        return this.spotifyRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(httpHeaders), object).getBody();
+    }
+
+    private Set<String> getMissingIds(Collection<String> trackIds, Map<String, ?> cached) {
+        Set<String> missingIds = new LinkedHashSet<>();
+
+        for (String trackId : trackIds) {
+            if(!cached.containsKey(trackId)) {
+                missingIds.add(trackId);
+            }
+        }
+
+        return missingIds;
+    }
+}
@@ -0,0 +1,128 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+
+/**
+ * Count based circuit breaker of a Spotify endpoint.
+ * -- CLOSED: calls are permitted, outcomes are recorded in a sliding window
+ * -- OPEN: calls fail fast until openDuration has passed
+ * -- HALF_OPEN: one trial call, its outcome closes or opens the breaker again
+ */
+
+public class SpotifyCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private ApplicationProperties.Spotify.Resilience properties;
+
+    private State state = State.CLOSED;
+    private boolean[] failedCalls;
+    private int nextCall;
+    private int bufferedCalls;
+    private int failures;
+    private long openedAt;
+    private boolean trialCallInFlight;
+
+    public SpotifyCircuitBreaker(ApplicationProperties.Spotify.Resilience properties) {
+        this.properties = properties;
+        this.failedCalls = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if(this.state == State.OPEN) {
+            if(System.nanoTime() - this.openedAt < this.properties.getOpenDuration().toNanos()) {
+                return false;
+            }
+
+            this.state = State.HALF_OPEN;
+            this.trialCallInFlight = false;
+        }
+
+        if(this.state == State.HALF_OPEN) {
+            if(this.trialCallInFlight) {
+                return false;
+            }
+
+            this.trialCallInFlight = true;
+        }
+
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if(this.state == State.HALF_OPEN) {
+            this.transitionTo(State.CLOSED);
+            return;
+        }
+
+        this.record(false);
+    }
+
+    public synchronized void onFailure() {
+        if(this.state == State.HALF_OPEN) {
+            this.transitionTo(State.OPEN);
+            return;
+        }
+
+        this.record(true);
+
+        if(this.bufferedCalls >= this.properties.getMinimumCalls()
+                && this.getFailureRate() >= this.properties.getFailureRateThreshold()) {
+            this.transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * The call ended without a result of the endpoint (e.g. it was rate limited before being sent)
+     */
+    public synchronized void onIgnored() {
+        if(this.state == State.HALF_OPEN) {
+            this.trialCallInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    /**
+     * @return percentage of failed calls in the sliding window
+     */
+    public synchronized float getFailureRate() {
+        return this.bufferedCalls == 0 ? 0 : this.failures * 100f / this.bufferedCalls;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return this.bufferedCalls;
+    }
+
+    private void record(boolean failed) {
+        if(this.bufferedCalls == this.failedCalls.length) {
+            // the oldest call leaves the window
+            if(this.failedCalls[this.nextCall]) {
+                this.failures--;
+            }
+        } else {
+            this.bufferedCalls++;
+        }
+
+        this.failedCalls[this.nextCall] = failed;
+
+        if(failed) {
+            this.failures++;
+        }
+
+        this.nextCall = (this.nextCall + 1) % this.failedCalls.length;
+    }
+
+    private void transitionTo(State state) {
+        this.state = state;
+        this.openedAt = System.nanoTime();
+        this.trialCallInFlight = false;
+
+        this.failedCalls = new boolean[this.properties.getSlidingWindowSize()];
+        this.nextCall = 0;
+        this.bufferedCalls = 0;
+        this.failures = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.edtech.plugtify.service;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+
+import java.net.URI;
+
+/**
+ * Groups of Spotify endpoints isolated from each other (bulkhead and circuit breaker)
+ */
+
+public enum SpotifyEndpoint {
+
+    ACCOUNTS,
+    PROFILE,
+    RECENTLY_PLAYED,
+    TRACKS,
+    AUDIO_FEATURES,
+    RECOMMENDATIONS,
+    PLAYLIST_WRITE,
+    OTHER;
+
+    public static SpotifyEndpoint of(HttpRequest request) {
+        URI uri = request.getURI();
+        String path = uri.getPath() != null ? uri.getPath() : "";
+
+        if("accounts.spotify.com".equals(uri.getHost())) {
+            return ACCOUNTS;
+        }
+
+        if(path.startsWith("/v1/me/player/recently-played")) {
+            return RECENTLY_PLAYED;
+        }
+
+        if(path.startsWith("/v1/tracks")) {
+            return TRACKS;
+        }
+
+        if(path.startsWith("/v1/audio-features")) {
+            return AUDIO_FEATURES;
+        }
+
+        if(path.startsWith("/v1/recommendations")) {
+            return RECOMMENDATIONS;
+        }
+
+        if(path.startsWith("/v1/playlists") || (path.startsWith("/v1/me/playlists") && request.getMethod() == HttpMethod.POST)) {
+            return PLAYLIST_WRITE;
+        }
+
+        if(path.equals("/v1/me")) {
+            return PROFILE;
+        }
+
+        return OTHER;
+    }
+
+    /**
+     * @return name used in the configuration, e.g. audio-features
+     */
+    public String getPropertyName() {
+        return this.name().toLowerCase().replace('_', '-');
+    }
+}
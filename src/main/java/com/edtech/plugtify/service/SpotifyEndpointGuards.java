@@ -0,0 +1,90 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead (max concurrent calls) and circuit breaker of each Spotify endpoint,
+ * so a slow or failing endpoint can't take the threads needed by the others.
+ */
+
+@Component
+public class SpotifyEndpointGuards {
+
+    private ApplicationProperties.Spotify.Resilience properties;
+
+    private Map<SpotifyEndpoint, Semaphore> bulkheads = new EnumMap<>(SpotifyEndpoint.class);
+    private Map<SpotifyEndpoint, SpotifyCircuitBreaker> circuitBreakers = new EnumMap<>(SpotifyEndpoint.class);
+
+    public SpotifyEndpointGuards(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getSpotify().getResilience();
+
+        for (SpotifyEndpoint endpoint : SpotifyEndpoint.values()) {
+            this.bulkheads.put(endpoint, new Semaphore(this.getMaxConcurrentCalls(endpoint)));
+            this.circuitBreakers.put(endpoint, new SpotifyCircuitBreaker(this.properties));
+        }
+    }
+
+    /**
+     * Take a place in the bulkhead of the endpoint, then the permission of its circuit breaker:
+     * a call that can't enter the bulkhead never takes the trial call of a half open breaker
+     * @throws SpotifyUnavailableException if the bulkhead is full after maxWait or the breaker is open
+     */
+    public void acquire(SpotifyEndpoint endpoint) {
+        Semaphore bulkhead = this.bulkheads.get(endpoint);
+        boolean acquired;
+
+        try {
+            acquired = bulkhead.tryAcquire(this.properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if(!acquired) {
+            throw new SpotifyUnavailableException("Spotify " + endpoint.getPropertyName() + " is busy, try again later");
+        }
+
+        if(!this.circuitBreakers.get(endpoint).tryAcquirePermission()) {
+            bulkhead.release();
+            throw new SpotifyUnavailableException("Spotify " + endpoint.getPropertyName() + " is unavailable, try again later");
+        }
+    }
+
+    /**
+     * Leave the bulkhead of the endpoint and record the outcome of the call
+     * @param failed true, false or null when the call has no outcome of the endpoint
+     */
+    public void release(SpotifyEndpoint endpoint, Boolean failed) {
+        this.bulkheads.get(endpoint).release();
+
+        SpotifyCircuitBreaker circuitBreaker = this.circuitBreakers.get(endpoint);
+
+        if(failed == null) {
+            circuitBreaker.onIgnored();
+        } else if(failed) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    public SpotifyCircuitBreaker getCircuitBreaker(SpotifyEndpoint endpoint) {
+        return this.circuitBreakers.get(endpoint);
+    }
+
+    public int getAvailableConcurrentCalls(SpotifyEndpoint endpoint) {
+        return this.bulkheads.get(endpoint).availablePermits();
+    }
+
+    public int getMaxConcurrentCalls(SpotifyEndpoint endpoint) {
+        return this.properties.getMaxConcurrentCallsPerEndpoint()
+                .getOrDefault(endpoint.getPropertyName(), this.properties.getMaxConcurrentCalls());
+    }
+}
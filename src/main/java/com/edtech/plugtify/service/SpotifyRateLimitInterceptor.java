@@ -0,0 +1,133 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interceptor of the Spotify RestTemplate.
+ * -- takes a permit of the SpotifyRateLimiter before each request
+ * -- 429: honours Retry-After and sends the request again
+ * -- 5xx and I/O errors: sends idempotent requests again with jittered exponential backoff
+ * -- each attempt runs in the bulkhead and circuit breaker of the endpoint (SpotifyResilienceInterceptor)
+ * It must be the last interceptor, a retry executes the request without the previous interceptors.
+ */
+
+@Component
+public class SpotifyRateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private Logger logger = LoggerFactory.getLogger(SpotifyRateLimitInterceptor.class);
+
+    private ApplicationProperties.Spotify.RateLimit properties;
+    private SpotifyRateLimiter spotifyRateLimiter;
+    private SpotifyResilienceInterceptor spotifyResilienceInterceptor;
+    private Counter throttledResponses;
+
+    public SpotifyRateLimitInterceptor(
+            ApplicationProperties applicationProperties,
+            SpotifyRateLimiter spotifyRateLimiter,
+            SpotifyResilienceInterceptor spotifyResilienceInterceptor,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = applicationProperties.getSpotify().getRateLimit();
+        this.spotifyRateLimiter = spotifyRateLimiter;
+        this.spotifyResilienceInterceptor = spotifyResilienceInterceptor;
+        this.throttledResponses = meterRegistry.counter("plugtify.spotify.responses.throttled");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.getMethod());
+        int attempt = 0;
+
+        while(true) {
+            this.spotifyRateLimiter.acquire(SpotifyRequestPriority.current());
+
+            ClientHttpResponse response;
+
+            try {
+                response = this.spotifyResilienceInterceptor.intercept(request, body, execution);
+            } catch (IOException e) {
+                if(!idempotent || attempt >= this.properties.getMaxRetries()) {
+                    throw e;
+                }
+
+                this.logger.debug("Retrying {} after I/O error: {}", request.getURI(), e.getMessage());
+                this.sleep(this.getBackoff(attempt++));
+                continue;
+            }
+
+            int status = response.getRawStatusCode();
+            boolean throttled = status == 429;
+            boolean retryable = throttled || (idempotent && status >= 500);
+
+            if(!retryable || attempt >= this.properties.getMaxRetries()) {
+                return response;
+            }
+
+            Duration retryAfter = throttled ? this.getRetryAfter(response) : null;
+            response.close();
+
+            if(throttled) {
+                // the whole client waits: the limit is per application, not per request
+                this.throttledResponses.increment();
+                this.spotifyRateLimiter.blockFor(retryAfter != null ? retryAfter : this.getBackoff(attempt));
+            } else {
+                this.sleep(this.getBackoff(attempt));
+            }
+
+            this.logger.debug("Retrying {} after status {}", request.getURI(), status);
+            attempt++;
+        }
+    }
+
+    /**
+     * full jitter: random time between 0 and initialBackoff * 2^attempt (capped by maxBackoff)
+     */
+    private Duration getBackoff(int attempt) {
+        long maxBackoff = Math.min(
+                this.properties.getMaxBackoff().toMillis(),
+                this.properties.getInitialBackoff().toMillis() << Math.min(attempt, 20));
+
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxBackoff + 1));
+    }
+
+    private Duration getRetryAfter(ClientHttpResponse response) {
+        String retryAfter = response.getHeaders().getFirst("Retry-After");
+
+        if(retryAfter == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sleep(Duration duration) throws IOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.web.rest.errors.SpotifyRateLimitException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side token bucket for all the requests to Spotify.
+ * -- INTERACTIVE requests can use the whole bucket
+ * -- BACKGROUND requests leave a reserve of the bucket for the users requests
+ * -- a 429 response (Retry-After) blocks every request until the given time
+ */
+
+@Component
+public class SpotifyRateLimiter {
+
+    private ApplicationProperties.Spotify.RateLimit properties;
+
+    private double availablePermits;
+    private long lastRefillTime;
+    private long blockedUntil;
+
+    public SpotifyRateLimiter(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getSpotify().getRateLimit();
+        this.availablePermits = this.properties.getBurst();
+        this.lastRefillTime = System.nanoTime();
+        this.blockedUntil = this.lastRefillTime;
+
+        Gauge.builder("plugtify.spotify.rate-limiter.available-permits", this, SpotifyRateLimiter::getAvailablePermits)
+                .register(meterRegistry);
+        Gauge.builder("plugtify.spotify.rate-limiter.usage", this, limiter -> 1 - limiter.getAvailablePermits() / limiter.properties.getBurst())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wait for a permit
+     * @param priority priority of the request
+     * @throws SpotifyRateLimitException if the permit can't be acquired in the max wait of the priority
+     */
+    public void acquire(SpotifyRequestPriority priority) {
+        Duration maxWait = priority == SpotifyRequestPriority.INTERACTIVE
+                ? this.properties.getMaxWait()
+                : this.properties.getBackgroundMaxWait();
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        while(true) {
+            long waitTime = this.tryAcquire(priority);
+
+            if(waitTime == 0) {
+                return;
+            }
+
+            if(System.nanoTime() + waitTime > deadline) {
+                throw new SpotifyRateLimitException();
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SpotifyRateLimitException();
+            }
+        }
+    }
+
+    /**
+     * Stop sending requests until the given time has passed (Retry-After of a 429 response)
+     */
+    public synchronized void blockFor(Duration retryAfter) {
+        this.blockedUntil = Math.max(this.blockedUntil, System.nanoTime() + retryAfter.toNanos());
+    }
+
+    public synchronized double getAvailablePermits() {
+        this.refill(System.nanoTime());
+        return this.availablePermits;
+    }
+
+    /**
+     * @return 0 if a permit was taken, otherwise the nanoseconds to wait before trying again
+     */
+    private synchronized long tryAcquire(SpotifyRequestPriority priority) {
+        long now = System.nanoTime();
+
+        if(now < this.blockedUntil) {
+            return this.blockedUntil - now;
+        }
+
+        this.refill(now);
+
+        double reserve = priority == SpotifyRequestPriority.INTERACTIVE
+                ? 0
+                : this.properties.getBurst() * this.properties.getBackgroundReserve();
+
+        if(this.availablePermits - 1 >= reserve) {
+            this.availablePermits = this.availablePermits - 1;
+            return 0;
+        }
+
+        double missingPermits = reserve + 1 - this.availablePermits;
+
+        return Math.max(1, (long) (missingPermits / this.properties.getPermitsPerSecond() * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private void refill(long now) {
+        double refilledPermits = (now - this.lastRefillTime) * this.properties.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+
+        this.availablePermits = Math.min(this.properties.getBurst(), this.availablePermits + refilledPermits);
+        this.lastRefillTime = now;
+    }
+}
@@ -0,0 +1,44 @@
+package com.edtech.plugtify.service;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Priority of the Spotify requests sent by the current thread.
+ * Users requests are INTERACTIVE, the background processes run as BACKGROUND.
+ */
+
+public enum SpotifyRequestPriority {
+
+    INTERACTIVE,
+    BACKGROUND;
+
+    private static final ThreadLocal<SpotifyRequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    public static SpotifyRequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the task with the given priority in the current thread
+     */
+    public static void runAs(SpotifyRequestPriority priority, Runnable task) {
+        SpotifyRequestPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+
+        try {
+            task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @return decorator that keeps the priority of the thread that submits a task to an executor
+     */
+    public static TaskDecorator propagate() {
+        return task -> {
+            SpotifyRequestPriority priority = current();
+            return () -> runAs(priority, task);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.edtech.plugtify.service;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Runs each attempt of a Spotify request inside the bulkhead and circuit breaker of its endpoint.
+ * It is called by SpotifyRateLimitInterceptor for every attempt, so a place in the bulkhead is only held
+ * during the HTTP exchange, not while waiting for a rate limit permit or a retry.
+ * 5xx responses and I/O errors (e.g. read timeouts) are failures of the endpoint,
+ * a throttled (429) response is not.
+ */
+
+@Component
+public class SpotifyResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private SpotifyEndpointGuards spotifyEndpointGuards;
+
+    public SpotifyResilienceInterceptor(SpotifyEndpointGuards spotifyEndpointGuards) {
+        this.spotifyEndpointGuards = spotifyEndpointGuards;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        SpotifyEndpoint endpoint = SpotifyEndpoint.of(request);
+
+        this.spotifyEndpointGuards.acquire(endpoint);
+
+        Boolean failed = null;
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getRawStatusCode();
+            failed = status == 429 ? null : status >= 500;
+
+            return response;
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        } finally {
+            this.spotifyEndpointGuards.release(endpoint, failed);
+        }
+    }
+}
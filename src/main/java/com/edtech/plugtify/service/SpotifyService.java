@@ -1,57 +1,103 @@
 package com.edtech.plugtify.service;
 
 import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.PlayHistory;
 import com.edtech.plugtify.domain.Token;
 import com.edtech.plugtify.domain.User;
 import com.edtech.plugtify.repository.TokenRepository;
 import com.edtech.plugtify.repository.UserRepository;
 import com.edtech.plugtify.service.dto.*;
+import com.edtech.plugtify.web.rest.errors.BadRequestAlertException;
 import com.edtech.plugtify.web.rest.errors.InternalServerErrorException;
 import com.edtech.plugtify.web.rest.errors.UserNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.*;
-import org.springframework.http.converter.FormHttpMessageConverter;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.swing.text.html.Option;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class SpotifyService {
 
+    private Logger logger = LoggerFactory.getLogger(SpotifyService.class);
+
     private ApplicationProperties applicationProperties;
-    private UserService userService;
+    private CurrentUserResolver currentUserResolver;
     private UserRepository userRepository;
     private TokenRepository tokenRepository;
+    private RestTemplate spotifyRestTemplate;
+    private TrackFeatureJoiner trackFeatureJoiner;
+    private SpotifyCatalogLoader spotifyCatalogLoader;
+    private SpotifyTokenManager spotifyTokenManager;
+    private SpotifyAsyncClient spotifyAsyncClient;
+    private PlayHistoryService playHistoryService;
+    private TrackFeatureStore trackFeatureStore;
+    private LocalRecommendationEngine localRecommendationEngine;
+    private TasteProfileService tasteProfileService;
+    private SuggestionCache suggestionCache;
+    private AsyncTaskExecutor suggestionRefreshExecutor;
+
+    // users whose cached suggestions are being refreshed
+    private Set<Long> suggestionRefreshes = ConcurrentHashMap.newKeySet();
 
     public SpotifyService(
         ApplicationProperties applicationProperties,
-        UserService userService,
+        CurrentUserResolver currentUserResolver,
         UserRepository userRepository,
-        TokenRepository tokenRepository
+        TokenRepository tokenRepository,
+        RestTemplate spotifyRestTemplate,
+        TrackFeatureJoiner trackFeatureJoiner,
+        SpotifyCatalogLoader spotifyCatalogLoader,
+        SpotifyTokenManager spotifyTokenManager,
+        SpotifyAsyncClient spotifyAsyncClient,
+        PlayHistoryService playHistoryService,
+        TrackFeatureStore trackFeatureStore,
+        LocalRecommendationEngine localRecommendationEngine,
+        TasteProfileService tasteProfileService,
+        SuggestionCache suggestionCache,
+        @Qualifier("suggestionRefreshExecutor") AsyncTaskExecutor suggestionRefreshExecutor
     ) {
         this.applicationProperties = applicationProperties;
-        this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
+        this.spotifyRestTemplate = spotifyRestTemplate;
+        this.trackFeatureJoiner = trackFeatureJoiner;
+        this.spotifyCatalogLoader = spotifyCatalogLoader;
+        this.spotifyTokenManager = spotifyTokenManager;
+        this.spotifyAsyncClient = spotifyAsyncClient;
+        this.playHistoryService = playHistoryService;
+        this.trackFeatureStore = trackFeatureStore;
+        this.localRecommendationEngine = localRecommendationEngine;
+        this.tasteProfileService = tasteProfileService;
+        this.suggestionCache = suggestionCache;
+        this.suggestionRefreshExecutor = suggestionRefreshExecutor;
     }
 
 
     public void processAuthorizationCode(AuthorizationCodeDTO authorizationCode) throws Exception {
 
-        HttpHeaders httpHeaders = this.getHttpHeadersAuth();
+        HttpHeaders httpHeaders = this.spotifyTokenManager.getHttpHeadersAuth();
 
         MultiValueMap<String, String> parameterMap = new LinkedMultiValueMap<>();
 
@@ -63,14 +109,10 @@ public class SpotifyService {
                 new HttpEntity<>(parameterMap, httpHeaders);
 
         ResponseEntity<TokenDTO> newTokenResponse =
-                this.getTokenDTOAuthAndRefresh(SpotifyConstants.URL_EXCHANGE_TOKEN, httpEntity);
-
-        if (this.userService.getCurrentUser().isEmpty()) {
-            throw new UserNotFoundException();
-        }
+                this.spotifyTokenManager.getTokenDTOAuthAndRefresh(SpotifyConstants.URL_EXCHANGE_TOKEN, httpEntity);
 
         // get current user
-        User actualUser = this.userService.getCurrentUser().get();
+        User actualUser = this.currentUserResolver.getCurrentUser().orElseThrow(UserNotFoundException::new);
 
         // check if user have a token
         if (actualUser.getHasToken()) {
@@ -117,7 +159,7 @@ public class SpotifyService {
      * @return ResponseEntity
      */
     public ResponseEntity<Void> unfollowPlaylist(String principalName) {
-        Optional<User> user = this.userRepository.findOneByLogin(principalName);
+        Optional<User> user = this.currentUserResolver.getUser(principalName);
 
         if(user.isEmpty()) {
             throw new UserNotFoundException();
@@ -126,12 +168,8 @@ public class SpotifyService {
         if(user.get().getToken() != null && user.get().getPlaylistId() != null) {
             Token userToken = user.get().getToken();
 
-            if(this.isTokenExpired(userToken)) {
-                this.refreshAccessToken(userToken);
-            }
-
             HttpHeaders httpHeaders = new HttpHeaders();
-            httpHeaders.set("Authorization", userToken.getToken_type() + " " + userToken.getAccess_token());
+            httpHeaders.set("Authorization", this.spotifyTokenManager.getAuthorization(userToken));
 
             HttpEntity httpEntity = new HttpEntity(httpHeaders);
 
@@ -141,8 +179,7 @@ public class SpotifyService {
             UriComponentsBuilder uriComponentsBuilder =
                     UriComponentsBuilder.fromUriString(SpotifyConstants.URL_UNFOLLOW_PLAYLIST);
 
-            RestTemplate restTemplate = new RestTemplate();
-            return restTemplate.exchange(uriComponentsBuilder.buildAndExpand(parametersMap).toUriString(), HttpMethod.DELETE, httpEntity, Void.class);
+            return this.spotifyRestTemplate.exchange(uriComponentsBuilder.buildAndExpand(parametersMap).toUriString(), HttpMethod.DELETE, httpEntity, Void.class);
         }
 
         return new ResponseEntity<>(HttpStatus.OK);
@@ -154,15 +191,11 @@ public class SpotifyService {
      * @return the response
      */
     public ResponseEntity<Void> addPlaylist(SpotifyTrackDTO[] tracks) {
-        Optional<User> userOptional = this.userService.getCurrentUser();
+        Optional<User> userOptional = this.currentUserResolver.getCurrentUser();
 
         return userOptional.map(user -> {
             Token userToken = user.getToken();
 
-            if(this.isTokenExpired(userToken)) {
-                this.refreshAccessToken(userToken);
-            }
-
             if(user.getPlaylistId() != null) {
                 ResponseEntity<Void> response;
 
@@ -180,6 +213,30 @@ public class SpotifyService {
         }).orElseThrow(UserNotFoundException::new);
     }
 
+    /**
+     * Async version of addPlaylist (async mode)
+     * @param tracks track to add
+     * @return the pending response
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ResponseEntity<Void>> addPlaylistAsync(SpotifyTrackDTO[] tracks) {
+        User user = this.currentUserResolver.getCurrentUser().orElseThrow(UserNotFoundException::new);
+        Token userToken = user.getToken();
+
+        if(user.getPlaylistId() == null) {
+            return this.createPlaylistAsync(tracks, user, userToken);
+        }
+
+        return this.replaceTrackPlaylistAsync(tracks, user.getPlaylistId(), userToken).thenCompose(response -> {
+            // validate if the tracks were replaced: for example the playlist was deleted
+            if(response.getStatusCodeValue() == 404 || response.getStatusCodeValue() == 304) {
+                return this.createPlaylistAsync(tracks, user, userToken);
+            }
+
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
     /**
      * Method to replace tracks in playlist
      * @param tracks tracks to add to the playlist
@@ -187,14 +244,26 @@ public class SpotifyService {
      * @return response
      */
     public ResponseEntity<Void> replaceTrackPlaylist(SpotifyTrackDTO[] tracks, String playlistId, Token userToken) {
+        String value = this.spotifyTokenManager.getAuthorization(userToken);
 
-        SpotifyTrackDTO[] tracksLocal = new ArrayList<>(Arrays.asList(tracks)).subList(0, 40).toArray(SpotifyTrackDTO[]::new);
+        ResponseEntity<Void> res = this.spotifyRestTemplate.exchange(this.getReplacePlaylistUrl(tracks, playlistId), HttpMethod.PUT,
+                new HttpEntity<>(this.getJsonHeaders(value)), Void.class);
 
-        String value = userToken.getToken_type() + " " + userToken.getAccess_token();
+        return new ResponseEntity<>(res.getStatusCode());
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Authorization", value);
-        headers.add("Content-Type", "application/json");
+    private CompletableFuture<ResponseEntity<Void>> replaceTrackPlaylistAsync(SpotifyTrackDTO[] tracks, String playlistId, Token userToken) {
+        return this.spotifyTokenManager.getAuthorizationAsync(userToken)
+                .thenCompose(value -> this.spotifyAsyncClient.exchange(this.getReplacePlaylistUrl(tracks, playlistId), HttpMethod.PUT,
+                        new HttpEntity<>(this.getJsonHeaders(value)), Void.class))
+                .thenApply(res -> new ResponseEntity<>(res.getStatusCode()));
+    }
+
+    /**
+     * @return url to replace the tracks of the playlist with the first 40 tracks
+     */
+    private String getReplacePlaylistUrl(SpotifyTrackDTO[] tracks, String playlistId) {
+        SpotifyTrackDTO[] tracksLocal = new ArrayList<>(Arrays.asList(tracks)).subList(0, Math.min(40, tracks.length)).toArray(SpotifyTrackDTO[]::new);
 
         Map<String, String> paramsReplaceTracks = new HashMap<>();
         paramsReplaceTracks.put("playlist_id", URLEncoder.encode(playlistId, StandardCharsets.UTF_8));
@@ -204,14 +273,15 @@ public class SpotifyService {
         UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_REPLACE_PLAYLIST)
                 .queryParam("uris", uris);
 
-        HttpEntity httpEntityReplace = new HttpEntity(headers);
-
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setMessageConverters(this.getMessageConverters());
+        return builder.buildAndExpand(paramsReplaceTracks).toUriString();
+    }
 
-        ResponseEntity<Void> res = restTemplate.exchange(builder.buildAndExpand(paramsReplaceTracks).toUriString(), HttpMethod.PUT, httpEntityReplace, Void.class);
+    private HttpHeaders getJsonHeaders(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add("Authorization", authorization);
 
-        return new ResponseEntity<>(res.getStatusCode());
+        return headers;
     }
 
     /**
@@ -224,239 +294,450 @@ public class SpotifyService {
     public ResponseEntity<Void> createPlaylist(SpotifyTrackDTO[] tracks, User user, Token userToken) {
 
         // creating playlist --> POST
-        String value = userToken.getToken_type() + " " + userToken.getAccess_token();
+        String value = this.spotifyTokenManager.getAuthorization(userToken);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.add("Authorization", value);
+        ResponseEntity<SpotifyPlaylistDTO> playlistResponse = this.spotifyRestTemplate.postForEntity(SpotifyConstants.URL_CREATE_PLAYLIST,
+                this.getCreatePlaylistEntity(value), SpotifyPlaylistDTO.class);
 
-        SpotifyPlaylistRequest playlistRequest = new SpotifyPlaylistRequest("Plugtify Playlist", "Playlist created with Plugtify");
+        String playlistId = this.savePlaylistId(user, playlistResponse);
+
+        if(playlistResponse.getStatusCodeValue() == 200 || playlistResponse.getStatusCodeValue() == 201) {
+            return this.replaceTrackPlaylist(tracks, playlistId, userToken);
+        } else {
+            return new ResponseEntity<>(playlistResponse.getStatusCode());
+        }
+    }
 
-        HttpEntity<SpotifyPlaylistRequest> httpEntity =
-                new HttpEntity<>(playlistRequest, headers);
+    private CompletableFuture<ResponseEntity<Void>> createPlaylistAsync(SpotifyTrackDTO[] tracks, User user, Token userToken) {
+        return this.spotifyTokenManager.getAuthorizationAsync(userToken)
+                .thenCompose(value -> this.spotifyAsyncClient.exchange(SpotifyConstants.URL_CREATE_PLAYLIST, HttpMethod.POST,
+                        this.getCreatePlaylistEntity(value), SpotifyPlaylistDTO.class))
+                .thenCompose(playlistResponse -> {
+                    String playlistId = this.savePlaylistId(user, playlistResponse);
 
-        RestTemplate restTemplate = new RestTemplate();
-        List<HttpMessageConverter<?>> converters = new ArrayList<>();
-        converters.add(new MappingJackson2HttpMessageConverter());
+                    if(playlistResponse.getStatusCodeValue() == 200 || playlistResponse.getStatusCodeValue() == 201) {
+                        return this.replaceTrackPlaylistAsync(tracks, playlistId, userToken);
+                    }
 
-        restTemplate.setMessageConverters(converters);
+                    return CompletableFuture.completedFuture(new ResponseEntity<>(playlistResponse.getStatusCode()));
+                });
+    }
 
-        ResponseEntity<SpotifyPlaylistDTO> playlistResponse = restTemplate.postForEntity(SpotifyConstants.URL_CREATE_PLAYLIST, httpEntity, SpotifyPlaylistDTO.class);
+    private HttpEntity<SpotifyPlaylistRequest> getCreatePlaylistEntity(String authorization) {
+        SpotifyPlaylistRequest playlistRequest = new SpotifyPlaylistRequest("Plugtify Playlist", "Playlist created with Plugtify");
 
+        return new HttpEntity<>(playlistRequest, this.getJsonHeaders(authorization));
+    }
+
+    private String savePlaylistId(User user, ResponseEntity<SpotifyPlaylistDTO> playlistResponse) {
         String playlistId = Objects.requireNonNull(playlistResponse.getBody()).getId();
 
         user.setPlaylistId(playlistId);
 
         this.userRepository.save(user);
 
-        if(playlistResponse.getStatusCodeValue() == 200 || playlistResponse.getStatusCodeValue() == 201) {
-            return this.replaceTrackPlaylist(tracks, playlistId, userToken);
-        } else {
-            return new ResponseEntity<>(playlistResponse.getStatusCode());
+        return playlistId;
+    }
+
+    /**
+     * Method to get recommended tracks.
+     * The last suggestions of the user are served from the SuggestionCache, when they are older than stale-after
+     * they are refreshed in background for the next request (stale-while-revalidate).
+     * No transaction is held during the Spotify requests, so the plays stored by the ingestion are seen by the next reads.
+     * @param engine local, remote or null for the configured engine
+     * @param fresh true to compute the suggestions again instead of serving the cached ones
+     * @return ResponseEntity<SpotifyTrackDTO[]>
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist(String engine, boolean fresh) {
+        User user = this.getCurrentUserWithToken();
+        ApplicationProperties.Recommendations.Engine recommendationEngine = this.getRecommendationEngine(engine);
+
+        Optional<SuggestionCache.Suggestions> suggestions = this.getCachedSuggestions(user, recommendationEngine, fresh);
+
+        if(suggestions.isEmpty()) {
+            return this.getSuggestedPlaylistAndCache(user, recommendationEngine);
         }
+
+        return new ResponseEntity<>(this.getTracks(suggestions.get().getTrackIds()), HttpStatus.OK);
     }
 
-    // method to refresh access token if needed
-    public void refreshAccessToken(Token userToken) {
-        HttpHeaders httpHeaders = this.getHttpHeadersAuth();
+    /**
+     * Async version of getSuggestedPlaylist (async mode): the Spotify requests, the ingestion and the catalog
+     * lookups are composed, no thread waits for them
+     * @param engine local, remote or null for the configured engine
+     * @param fresh true to compute the suggestions again instead of serving the cached ones
+     * @return the pending response
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> getSuggestedPlaylistAsync(String engine, boolean fresh) {
+        User user = this.getCurrentUserWithToken();
+        ApplicationProperties.Recommendations.Engine recommendationEngine = this.getRecommendationEngine(engine);
 
-        MultiValueMap<String, String> parameterMap = new LinkedMultiValueMap<>();
-        parameterMap.add("grant_type", "refresh_token");
-        parameterMap.add("refresh_token", userToken.getRefresh_token());
+        Optional<SuggestionCache.Suggestions> suggestions = this.getCachedSuggestions(user, recommendationEngine, fresh);
 
-        HttpEntity<MultiValueMap<String, String>> httpEntity =
-                new HttpEntity<>(parameterMap, httpHeaders);
+        if(suggestions.isEmpty()) {
+            return this.getSuggestedPlaylistAsync(user, recommendationEngine)
+                    .thenApply(suggestedTracks -> this.cacheSuggestions(user, recommendationEngine, suggestedTracks));
+        }
 
-        ResponseEntity<TokenDTO> refreshedToken =
-                this.getTokenDTOAuthAndRefresh(SpotifyConstants.URL_REFRESH_TOKEN, httpEntity);
+        return this.getTracksAsync(suggestions.get().getTrackIds()).thenApply(tracks -> new ResponseEntity<>(tracks, HttpStatus.OK));
+    }
 
-        if(refreshedToken.hasBody()) {
+    /**
+     * @return the cached suggestions of the user, the stale ones are refreshed in background
+     */
+    private Optional<SuggestionCache.Suggestions> getCachedSuggestions(User user, ApplicationProperties.Recommendations.Engine engine, boolean fresh) {
+        Optional<SuggestionCache.Suggestions> suggestions = fresh ? Optional.empty() : this.suggestionCache.get(user.getId(), engine);
 
-            userToken.setAccess_token(Objects.requireNonNull(refreshedToken.getBody()).getAccess_token());
-            userToken.setScope(refreshedToken.getBody().getScope());
-            userToken.setExpires_in(refreshedToken.getBody().getExpires_in());
-            userToken.setToken_type(refreshedToken.getBody().getToken_type());
-            userToken.setLastUpdateTime(Timestamp.from(Instant.now()));
+        Duration staleAfter = this.applicationProperties.getRecommendations().getStaleAfter();
 
-            this.tokenRepository.save(userToken);
+        if(suggestions.isPresent() && suggestions.get().getGeneratedAt().plus(staleAfter).isBefore(Instant.now())) {
+            this.refreshSuggestedPlaylist(user.getId(), engine);
+        }
 
-        } else {
-            throw new InternalServerErrorException("response body is empty");
+        return suggestions;
+    }
+
+    /**
+     * Get recommended tracks for the given user with the configured engine, they are kept in the SuggestionCache
+     * @param user user with token
+     * @return ResponseEntity<SpotifyTrackDTO[]>
+     */
+    protected ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist(User user) {
+        return this.getSuggestedPlaylistAndCache(user, this.applicationProperties.getRecommendations().getEngine());
+    }
+
+    private ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylistAndCache(User user, ApplicationProperties.Recommendations.Engine engine) {
+        return this.cacheSuggestions(user, engine, this.getSuggestedPlaylist(user, engine));
+    }
+
+    private ResponseEntity<SpotifyTrackDTO[]> cacheSuggestions(User user, ApplicationProperties.Recommendations.Engine engine,
+                                                               ResponseEntity<SpotifyTrackDTO[]> suggestedTracks) {
+        if(suggestedTracks.hasBody()) {
+            List<String> trackIds = Arrays.stream(Objects.requireNonNull(suggestedTracks.getBody()))
+                    .map(SpotifyTrackDTO::getId)
+                    .collect(Collectors.toList());
+
+            this.suggestionCache.put(user.getId(), engine, trackIds);
+        }
+
+        return suggestedTracks;
+    }
+
+    /**
+     * Compute again the cached suggestions of the user as a background process, at most one refresh per user;
+     * the user is loaded again by the task, not shared with the request that started it
+     */
+    private void refreshSuggestedPlaylist(Long userId, ApplicationProperties.Recommendations.Engine engine) {
+        if(!this.suggestionRefreshes.add(userId)) {
+            return;
+        }
+
+        try {
+            this.suggestionRefreshExecutor.execute(() -> {
+                try {
+                    this.userRepository.findOneWithTokenById(userId).ifPresent(user -> SpotifyRequestPriority.runAs(
+                            SpotifyRequestPriority.BACKGROUND, () -> this.getSuggestedPlaylistAndCache(user, engine)));
+                } catch (RuntimeException e) {
+                    this.logger.warn("Suggestions of user {} can not be refreshed: {}", userId, e.getMessage());
+                } finally {
+                    this.suggestionRefreshes.remove(userId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // the queue is full: the stale suggestions are served, the next request tries again
+            this.suggestionRefreshes.remove(userId);
         }
     }
 
     /**
-     * Method to get recommended tracks
+     * Get recommended tracks for the given user based on its taste profile
+     * @param user user with token
+     * @param engine LOCAL: nearest stored tracks, REMOTE (or cold user): Spotify recommendations
      * @return ResponseEntity<SpotifyTrackDTO[]>
      */
     @SuppressWarnings("unchecked")
-    public ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist() {
-        float acousticness = 0.0f;
-        float danceability = 0.0f;
-        float energy = 0.0f;
-        float instrumentalness = 0.0f;
-        float liveness = 0.0f;
-        float speechiness = 0.0f;
-        float valence = 0.0f;
-        int popularity = 0; // --> 0-100 value
-
-        // get average of each audio feature
-
-        ResponseEntity<SpotifyTrackDTO[]> tracksResponse =
-                this.getRecentlyPlayed();
-
-        if(!tracksResponse.hasBody()) {
-            throw new InternalServerErrorException("Can't get recently played tracks");
-        }
+    protected ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist(User user, ApplicationProperties.Recommendations.Engine engine) {
+        HttpHeaders httpHeaders = this.getHttpHeaders(user.getToken());
+
+        HttpEntity<MultiValueMap<String, String>> httpEntity =
+                new HttpEntity<>(httpHeaders);
+
+        // the new plays are ingested and folded in the taste profile
+        TasteProfileService.Taste taste = this.getTaste(user);
+
+        // tracks of the play history, they are not suggested
+        List<String> playedIds = this.getPlayedIds(user, taste);
 
-        int cantTracks = Objects.requireNonNull(tracksResponse.getBody()).length;
-
-        for (SpotifyTrackDTO track: tracksResponse.getBody()) {
-            acousticness = acousticness + track.getAudio_feature().getAcousticness();
-            danceability = danceability + track.getAudio_feature().getDanceability();
-            energy = energy + track.getAudio_feature().getEnergy();
-            instrumentalness = instrumentalness + track.getAudio_feature().getInstrumentalness();
-            liveness = liveness + track.getAudio_feature().getLiveness();
-            speechiness = speechiness + track.getAudio_feature().getSpeechiness();
-            valence = valence + track.getAudio_feature().getValence();
-            popularity = popularity + track.getPopularity();
+        if(engine == ApplicationProperties.Recommendations.Engine.LOCAL) {
+            List<String> localIds = this.localRecommendationEngine.recommend(taste, playedIds, 50);
+
+            if(!localIds.isEmpty()) {
+                return new ResponseEntity<>(this.getTracks(localIds), HttpStatus.OK);
+            }
         }
 
-        acousticness = acousticness / cantTracks;
-        danceability = danceability / cantTracks;
-        energy = energy / cantTracks;
-        instrumentalness = instrumentalness / cantTracks;
-        liveness = liveness / cantTracks;
-        speechiness = speechiness / cantTracks;
-        valence = valence / cantTracks;
-        popularity = popularity / cantTracks;
+        // array of tracks simplified
+        ResponseEntity<SpotifyTrackArrayDTO> arrayTracksSimplified =
+                (ResponseEntity<SpotifyTrackArrayDTO>) this.getClientResponseEntity(this.getRequests(this.getRecommendationsUrl(taste, playedIds), SpotifyTrackArrayDTO.class, httpEntity));
 
-        // get 5 random number between 0 and 49 to get the tracks in those indexs, and get the ids
-        Random random = new Random();
+        // array of full object tracks
+        return new ResponseEntity<>(this.getTracks(this.getNotPlayedIds(arrayTracksSimplified.getBody(), playedIds)), HttpStatus.OK) ;
 
-        String seedTracks;
-        Set<String> seedsTracks = new HashSet<>();
+    }
 
-        if(tracksResponse.getBody().length < 10) {
-            seedTracks = tracksResponse.getBody()[0].getId();
-        } else {
-            do {
-                seedsTracks.add(tracksResponse.getBody()[random.nextInt(tracksResponse.getBody().length)].getId());
-            } while(seedsTracks.size() < 5);
+    private CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> getSuggestedPlaylistAsync(User user, ApplicationProperties.Recommendations.Engine engine) {
+        return this.getTasteAsync(user).thenCompose(taste -> {
+            List<String> playedIds = this.getPlayedIds(user, taste);
+
+            if(engine == ApplicationProperties.Recommendations.Engine.LOCAL) {
+                List<String> localIds = this.localRecommendationEngine.recommend(taste, playedIds, 50);
+
+                if(!localIds.isEmpty()) {
+                    return this.getTracksAsync(localIds).thenApply(tracks -> new ResponseEntity<>(tracks, HttpStatus.OK));
+                }
+            }
+
+            String url = this.getRecommendationsUrl(taste, playedIds);
+
+            return this.spotifyTokenManager.getAuthorizationAsync(user.getToken())
+                    .thenCompose(value -> this.spotifyAsyncClient.exchange(url, HttpMethod.GET,
+                            new HttpEntity<>(this.getHttpHeaders(value)), SpotifyTrackArrayDTO.class))
+                    .thenCompose(arrayTracksSimplified -> this.getTracksAsync(this.getNotPlayedIds(arrayTracksSimplified.getBody(), playedIds)))
+                    .thenApply(tracks -> new ResponseEntity<>(tracks, HttpStatus.OK));
+        });
+    }
+
+    /**
+     * @return distinct tracks of the play history, they are not suggested
+     */
+    private List<String> getPlayedIds(User user, TasteProfileService.Taste taste) {
+        List<String> playedIds = this.playHistoryService.getProfileTrackIds(user, 50);
 
-            seedTracks = String.join(",", seedsTracks);
+        if(playedIds.isEmpty()) {
+            throw new InternalServerErrorException("User doesnt has recently played track");
         }
 
-        Token userToken = this.getCurrentUserToken();
+        if(taste.getPlays() == 0) {
+            throw new InternalServerErrorException("Recently played tracks don't have audio features");
+        }
 
-        HttpHeaders httpHeaders = this.getHttpHeaders(userToken);
+        return playedIds;
+    }
+
+    /**
+     * @return url of the Spotify recommendations for the taste of the user
+     */
+    private String getRecommendationsUrl(TasteProfileService.Taste taste, List<String> playedIds) {
+        // up to 5 seeds: random played tracks and the top artists of the profile
+        List<String> seedArtists = taste.getTopArtists().stream().limit(2).collect(Collectors.toList());
+
+        List<String> seedTracks = new ArrayList<>(playedIds);
+        Collections.shuffle(seedTracks);
+        seedTracks = seedTracks.subList(0, Math.min(seedTracks.size(), 5 - seedArtists.size()));
 
         UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_RECOMMENDATIONS)
                 .queryParam("limit", 50)
-                .queryParam("seed_tracks", seedTracks)
-                .queryParam("target_acousticness", acousticness)
-                .queryParam("target_danceability", danceability)
-                .queryParam("target_energy", energy)
-                .queryParam("target_instrumentalness", instrumentalness)
-                .queryParam("target_liveness", liveness)
-                .queryParam("target_speechiness", speechiness)
-                .queryParam("target_valence", valence)
-                .queryParam("min_popularity", popularity);
+                .queryParam("seed_tracks", String.join(",", seedTracks))
+                .queryParam("min_popularity", taste.getPopularity());
 
-        HttpEntity<MultiValueMap<String, String>> httpEntity =
-                new HttpEntity<>(httpHeaders);
+        if(!seedArtists.isEmpty()) {
+            urlBuilder.queryParam("seed_artists", String.join(",", seedArtists));
+        }
 
-        // array of tracks simplified
-        ResponseEntity<SpotifyTrackArrayDTO> arrayTracksSimplified =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.getClientResponseEntity(this.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
+        this.addFeatureRange(urlBuilder, "acousticness", taste, TrackFeatureIndex.ACOUSTICNESS);
+        this.addFeatureRange(urlBuilder, "danceability", taste, TrackFeatureIndex.DANCEABILITY);
+        this.addFeatureRange(urlBuilder, "energy", taste, TrackFeatureIndex.ENERGY);
+        this.addFeatureRange(urlBuilder, "instrumentalness", taste, TrackFeatureIndex.INSTRUMENTALNESS);
+        this.addFeatureRange(urlBuilder, "liveness", taste, TrackFeatureIndex.LIVENESS);
+        this.addFeatureRange(urlBuilder, "speechiness", taste, TrackFeatureIndex.SPEECHINESS);
+        this.addFeatureRange(urlBuilder, "valence", taste, TrackFeatureIndex.VALENCE);
+
+        return urlBuilder.toUriString();
+    }
 
-        List<SpotifyTrackDTO> listTracksSimplified = Arrays.stream(Objects.requireNonNull(arrayTracksSimplified.getBody()).getTracks())
+    /**
+     * @return ids of the recommended tracks, without the played tracks
+     */
+    private List<String> getNotPlayedIds(SpotifyTrackArrayDTO tracksSimplified, List<String> playedIds) {
+        List<SpotifyTrackDTO> listTracksSimplified = Arrays.stream(Objects.requireNonNull(tracksSimplified).getTracks())
                 .collect(Collectors.toList());
 
-        // removing repeated tracks
-        Arrays.stream(tracksResponse.getBody()).forEach(spotifyTrackDTO -> listTracksSimplified.removeIf(track -> track.getId().equals(spotifyTrackDTO.getId())));
+        // removing played tracks
+        Set<String> played = new HashSet<>(playedIds);
+        listTracksSimplified.removeIf(track -> played.contains(track.getId()));
 
-        String ids = Arrays.stream(listTracksSimplified.toArray(SpotifyTrackDTO[]::new))
+        return listTracksSimplified.stream()
                 .map(SpotifyTrackDTO::getId)
-                .collect(Collectors.joining(","));
+                .collect(Collectors.toList());
+    }
 
-        // array of full object tracks
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_TRACKS)
-                .queryParam("ids", ids);
+    private ApplicationProperties.Recommendations.Engine getRecommendationEngine(String engine) {
+        if(engine == null) {
+            return this.applicationProperties.getRecommendations().getEngine();
+        }
 
-        ResponseEntity<SpotifyTrackArrayDTO> responseTracks =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.getClientResponseEntity(this.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
+        try {
+            return ApplicationProperties.Recommendations.Engine.valueOf(engine.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unknown recommendation engine: " + engine, "recommendations", "unknownengine");
+        }
+    }
 
-        if(!responseTracks.hasBody()) {
-            throw new InternalServerErrorException("There was a problem getting the full object for each tracks");
+    /**
+     * Ingest the new plays of the user and fold them in its taste profile.
+     * Only the played tracks that are not in the TrackFeatureStore are requested to Spotify (and then stored).
+     * @param user user with token
+     * @return taste profile of the user
+     */
+    private TasteProfileService.Taste getTaste(User user) {
+        this.playHistoryService.ingest(user);
+
+        List<PlayHistory> plays = this.tasteProfileService.getPlaysToFold(user.getId());
+        Set<String> missingIds = this.getMissingIds(plays);
+
+        if(!missingIds.isEmpty()) {
+            this.getTracksWithFeatures(new ArrayList<>(missingIds));
         }
 
-        return new ResponseEntity<>(Arrays.stream(Objects.requireNonNull(responseTracks.getBody()).getTracks()).toArray(SpotifyTrackDTO[]::new), HttpStatus.OK) ;
+        return this.tasteProfileService.update(user.getId(), plays);
+    }
+
+    private CompletableFuture<TasteProfileService.Taste> getTasteAsync(User user) {
+        return this.playHistoryService.ingestAsync(user).thenCompose(ingested -> {
+            List<PlayHistory> plays = this.tasteProfileService.getPlaysToFold(user.getId());
+            Set<String> missingIds = this.getMissingIds(plays);
+
+            CompletableFuture<SpotifyTrackDTO[]> stored = missingIds.isEmpty()
+                    ? CompletableFuture.completedFuture(new SpotifyTrackDTO[0])
+                    : this.getTracksWithFeaturesAsync(new ArrayList<>(missingIds));
+
+            return stored.thenApply(tracks -> this.tasteProfileService.update(user.getId(), plays));
+        });
+    }
 
+    private Set<String> getMissingIds(List<PlayHistory> plays) {
+        return this.trackFeatureStore.getMissingIds(
+                plays.stream().map(PlayHistory::getTrackId).distinct().collect(Collectors.toList()));
     }
 
     /**
-     * Get the recently played tracks by the user
-     * @return response
+     * Add the target, min_ and max_ parameters of an audio feature in [0, 1]
      */
-    @SuppressWarnings("unchecked")
-    public ResponseEntity<SpotifyTrackDTO[]> getRecentlyPlayed() {
-        Token userToken = this.getCurrentUserToken();
+    private void addFeatureRange(UriComponentsBuilder urlBuilder, String feature, TasteProfileService.Taste taste, int dimension) {
+        float mean = taste.getMean(dimension);
+        float range = taste.getStandardDeviation(dimension) * this.applicationProperties.getRecommendations().getRangeStandardDeviations();
 
-        HttpHeaders httpHeaders = this.getHttpHeaders(userToken);
-
-        UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_RECENTLY_PLAYED)
-                .queryParam("limit", 50); // query parameter to get the last 50 played tracks
+        urlBuilder.queryParam("target_" + feature, mean)
+                .queryParam("min_" + feature, Math.max(0f, mean - range))
+                .queryParam("max_" + feature, Math.min(1f, mean + range));
+    }
 
-        HttpEntity<MultiValueMap<String, String>> httpEntity = new HttpEntity<>(httpHeaders);
+    /**
+     * Get the recently played tracks by the user (no transaction is held during the Spotify requests)
+     * @return response
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<SpotifyTrackDTO[]> getRecentlyPlayed() {
+        User user = this.getCurrentUserWithToken();
 
-        // first, we get the last 50 played tracks -> tracks objects are simplified
-        ResponseEntity<SpotifyItemsDTO> responsePlayHistory =
-                (ResponseEntity<SpotifyItemsDTO>) this.getClientResponseEntity(this.getRequests(urlBuilder.toUriString(), SpotifyItemsDTO.class, httpEntity));
+        // first, we get the last 50 played tracks from the play history (only the new plays are requested to Spotify)
+        List<String> trackIds = this.playHistoryService.getRecentTrackIds(user, 50);
 
-        if(!responsePlayHistory.hasBody()) {
-            throw new InternalServerErrorException("There are not Recently played Tracks for this user");
+        if(trackIds.isEmpty()) {
+            throw new InternalServerErrorException("User doesnt has recently played track");
         }
 
-        // Second, we get the full objects for each track recently played
+        // Second, we get the full track object and the features for each id
+        return new ResponseEntity<>(this.getTracksWithFeatures(trackIds), HttpStatus.OK) ;
+    }
 
-        // --> getting the ids from responsePlayHistory for each track and save them in a String variable
-        String ids = Arrays.stream(Objects.requireNonNull(responsePlayHistory.getBody()).getItems()).map(historyObject -> historyObject.getTrack().getId()).collect(Collectors.joining(",")); // separating each id with a ,
+    /**
+     * Async version of getRecentlyPlayed (async mode)
+     * @return the pending response
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> getRecentlyPlayedAsync() {
+        User user = this.getCurrentUserWithToken();
 
-        // Third, we get the full track object for each id in the ids variable
+        return this.playHistoryService.ingestAsync(user)
+                .thenCompose(ingested -> {
+                    List<String> trackIds = this.playHistoryService.getStoredRecentTrackIds(user, 50);
 
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_TRACKS)
-                .queryParam("ids", ids);
+                    if(trackIds.isEmpty()) {
+                        throw new InternalServerErrorException("User doesnt has recently played track");
+                    }
 
-        if(ids.length() == 0) {
-            throw new InternalServerErrorException("User doesnt has recently played track");
-        }
+                    return this.getTracksWithFeaturesAsync(trackIds);
+                })
+                .thenApply(tracks -> new ResponseEntity<>(tracks, HttpStatus.OK));
+    }
 
-        ResponseEntity<SpotifyTrackArrayDTO> responseTracks =
-                (ResponseEntity<SpotifyTrackArrayDTO>) this.getClientResponseEntity(this.getRequests(urlBuilder.toUriString(), SpotifyTrackArrayDTO.class, httpEntity));
+    /**
+     * Get the full track objects merged with their audio features.
+     * Both lookups only need the ids, so they are sent at the same time through the SpotifyCatalogLoader
+     * (catalog cache, then batches coalesced with the other requests).
+     * @param trackIds track ids, any number
+     * @return tracks with its audio feature
+     */
+    protected SpotifyTrackDTO[] getTracksWithFeatures(List<String> trackIds) {
+        return this.join(this.getTracksWithFeaturesAsync(trackIds));
+    }
 
-        if(!responseTracks.hasBody()) {
-            throw new InternalServerErrorException("There was a problem getting the full object for each tracks");
-        }
+    /**
+     * Async version of getTracksWithFeatures: the tracks are merged and stored when both lookups complete
+     * @param trackIds track ids, any number
+     * @return the pending tracks with its audio feature
+     */
+    protected CompletableFuture<SpotifyTrackDTO[]> getTracksWithFeaturesAsync(List<String> trackIds) {
+        CompletableFuture<Map<String, SpotifyTrackDTO>> tracksFuture = this.spotifyCatalogLoader.getTracks(trackIds);
+        CompletableFuture<Map<String, SpotifyAudioFeaturesDTO>> featuresFuture = this.spotifyCatalogLoader.getAudioFeatures(trackIds);
 
-        urlBuilder = UriComponentsBuilder.fromHttpUrl(SpotifyConstants.URL_FEATURES_TRACKS)
-                .queryParam("ids", ids);
+        return tracksFuture.thenCombine(featuresFuture, (tracks, audioFeatures) -> {
+            // keep the order (and repeated tracks) of the ids
+            SpotifyTrackDTO[] orderedTracks = trackIds.stream().map(tracks::get).toArray(SpotifyTrackDTO[]::new);
 
-        // Forth, we get the features of each track by id
-        ResponseEntity<SpotifyAudioFeatureArrayDTO> responseTracksFeatures =
-                (ResponseEntity<SpotifyAudioFeatureArrayDTO>) this.getClientResponseEntity(this.getRequests(urlBuilder.toUriString(), SpotifyAudioFeatureArrayDTO.class, httpEntity));
+            // merge the tracks with its features
+            SpotifyTrackDTO[] tracksWithFeatures = this.trackFeatureJoiner.join(orderedTracks, audioFeatures);
 
-        SpotifyTrackDTO[] tracks = Arrays.stream(Objects.requireNonNull(responseTracks.getBody()).getTracks()).peek(track -> {
-            // merge the track with its features
+            // the features are kept for the user profiles
+            this.trackFeatureStore.store(tracksWithFeatures);
 
-            SpotifyAudioFeaturesDTO audioFeatures = Arrays.stream(Objects.requireNonNull(responseTracksFeatures.getBody()).getAudio_features())
-                    .filter(trackFeature -> trackFeature.getId().equals(track.getId())).collect(Collectors.toList()).get(0);
+            return tracksWithFeatures;
+        });
+    }
+
+    /**
+     * Get the full track objects through the SpotifyCatalogLoader
+     * @param trackIds track ids, any number
+     * @return tracks in the same order of the ids
+     */
+    protected SpotifyTrackDTO[] getTracks(List<String> trackIds) {
+        return this.join(this.getTracksAsync(trackIds));
+    }
 
-            track.setAudio_feature(audioFeatures);
+    protected CompletableFuture<SpotifyTrackDTO[]> getTracksAsync(List<String> trackIds) {
+        return this.spotifyCatalogLoader.getTracks(trackIds)
+                .thenApply(tracks -> trackIds.stream().map(tracks::get).filter(Objects::nonNull).toArray(SpotifyTrackDTO[]::new));
+    }
 
-        }).toArray(SpotifyTrackDTO[]::new);
+    /**
+     * Wait for the result of a pending Spotify request.
+     * The exception thrown by the request (e.g. HttpClientErrorException) is rethrown as it is.
+     * @param future pending request
+     * @return the result of the request
+     */
+    protected <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
 
-        return new ResponseEntity<>(tracks, HttpStatus.OK) ;
+            throw e;
+        }
     }
 
     /**
@@ -474,6 +755,20 @@ public class SpotifyService {
         return (ResponseEntity<SpotifyUserDTO>) this.getClientResponseEntity(this.getRequests(SpotifyConstants.URL_CURRENT_USER, SpotifyUserDTO.class, httpEntity));
     }
 
+    /**
+     * Async version of getCurrentUser (async mode)
+     * @return the pending SpotifyUserDTO
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ResponseEntity<SpotifyUserDTO>> getCurrentUserAsync() {
+        Token userToken = this.getCurrentUserToken();
+
+        return this.spotifyTokenManager.getAuthorizationAsync(userToken)
+                .thenCompose(value -> this.spotifyAsyncClient.exchange(SpotifyConstants.URL_CURRENT_USER, HttpMethod.GET,
+                        new HttpEntity<>(this.getHttpHeaders(value)), SpotifyUserDTO.class))
+                .thenApply(response -> new ResponseEntity<>(response.getBody(), HttpStatus.OK));
+    }
+
     /**
      * Method to create a Client(Front-End) ResponseEntity based on the SpotifyReponseEntity.
      * this is because if we return the ResponseEntity from Spotify our Nginx server will reject the response!!
@@ -493,37 +788,9 @@ public class SpotifyService {
      */
     protected ResponseEntity<?> getRequests(String urlEndPoint, Class<?> object, HttpEntity<?> httpEntity) {
 
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setMessageConverters(this.getMessageConverters());
         // the getForEntity dont let set httpEntity wich can have headers
         // this is why we use restTemplate.exchange
-        return restTemplate.exchange(urlEndPoint, HttpMethod.GET, httpEntity, object);
-    }
-
-    /**
-     * Method to get user spotify tokens or refresh access token
-     * @return ResponseEntity<TokenDTO> tokens or token info
-     */
-    protected ResponseEntity<TokenDTO> getTokenDTOAuthAndRefresh(String urlEndPoint,
-                                                               HttpEntity<MultiValueMap<String, String>> parametersHttpEntity) {
-
-        RestTemplate restTemplate = new RestTemplate();
-
-        restTemplate.setMessageConverters(this.getMessageConverters());
-
-        return restTemplate.postForEntity(urlEndPoint, parametersHttpEntity, TokenDTO.class);
-
-    }
-
-    /**
-     * Check if token is valid; if not try refresh token
-     * @param userToken user Token entity info
-     */
-    protected boolean isTokenExpired(Token userToken) {
-        Timestamp checkTime =
-                Timestamp.from(userToken.getLastUpdateTime().toInstant().plusSeconds(userToken.getExpires_in()));
-
-        return checkTime.before(Timestamp.from(Instant.now()));
+        return this.spotifyRestTemplate.exchange(urlEndPoint, HttpMethod.GET, httpEntity, object);
     }
 
     /**
@@ -533,12 +800,12 @@ public class SpotifyService {
      */
     protected HttpHeaders getHttpHeaders(Token userToken) {
 
-        if(this.isTokenExpired(userToken)) {
-            this.refreshAccessToken(userToken); // if needed this will refresh the access token
-        }
+        String value = this.spotifyTokenManager.getAuthorization(userToken); // if needed this will refresh the access token
 
-        String value = userToken.getToken_type() + " " + userToken.getAccess_token();
+        return this.getHttpHeaders(value);
+    }
 
+    private HttpHeaders getHttpHeaders(String value) {
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         httpHeaders.add("Authorization", value);
@@ -551,8 +818,12 @@ public class SpotifyService {
      * @return Token Entity
      */
     private Token getCurrentUserToken() {
+        return this.getCurrentUserWithToken().getToken();
+    }
+
+    private User getCurrentUserWithToken() {
 
-        Optional<User> currentUser = this.userService.getCurrentUser();
+        Optional<User> currentUser = this.currentUserResolver.getCurrentUser();
 
         if(currentUser.isEmpty()) {
             throw new UserNotFoundException();
@@ -562,35 +833,6 @@ public class SpotifyService {
             throw new InternalServerErrorException("User doesn't have Access Token!");
         }
 
-        return currentUser.get().getToken();
-    }
-
-    /**
-     * Get HttpHeaders for Authorization flow or refresh access token
-     * @return HttpHeaders for Authorization flow or refresh access token
-     */
-    public HttpHeaders getHttpHeadersAuth() {
-        String stringToBeEncoded =
-                applicationProperties.getSpotify().getClientId() + ":" + applicationProperties.getSpotify().getClientSecret();
-
-        String value = "Basic " + Base64.getEncoder().encodeToString(stringToBeEncoded.getBytes());
-
-        HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        httpHeaders.add("Authorization", value);
-
-        return httpHeaders;
-    }
-
-    /**
-     * Method to get MessageConverter(s) for JSON and x-www-urlencoded
-     * @return List of Http Message converters
-     */
-    private List<HttpMessageConverter<?>> getMessageConverters() {
-        List<HttpMessageConverter<?>> converters = new ArrayList<>();
-        converters.add(new FormHttpMessageConverter()); // Message converter for application/x-www-urlencoded -> Request
-        converters.add(new MappingJackson2HttpMessageConverter()); // Message converter for application/JSON -> Response
-
-        return converters;
+        return currentUser.get();
     }
 }
@@ -0,0 +1,482 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.Token;
+import com.edtech.plugtify.repository.TokenRepository;
+import com.edtech.plugtify.service.dto.TokenDTO;
+import com.edtech.plugtify.web.rest.errors.InternalServerErrorException;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Component to manage the Spotify access tokens of the users.
+ * -- keeps a hot in-memory view of the valid access tokens by token id
+ * -- concurrent refreshes of the same token are merged into one request to accounts.spotify.com
+ * -- tokens are refreshed in background when they are about to expire (refresh skew),
+ *    so the request path only waits when the token is already expired, at most spotify.token.refresh-timeout
+ * -- a refresh rejected by the full spotifyExecutor fails instead of running in the request thread
+ * -- keeps the client credentials token of the application, used for the catalog requests
+ * -- the refreshes of the background job are written in batches (see runWithDeferredWrites)
+ */
+
+@Service
+public class SpotifyTokenManager {
+
+    private Logger logger = LoggerFactory.getLogger(SpotifyTokenManager.class);
+
+    private ApplicationProperties applicationProperties;
+    private TokenRepository tokenRepository;
+    private RestTemplate spotifyRestTemplate;
+    private Executor spotifyExecutor;
+
+    private Cache<Long, AccessToken> accessTokens;
+    private ConcurrentHashMap<Long, CompletableFuture<AccessToken>> refreshesInFlight = new ConcurrentHashMap<>();
+
+    private volatile AccessToken clientToken;
+    private ReentrantLock clientTokenLock = new ReentrantLock();
+
+    // refreshed tokens waiting for flushDeferredWrites, by token id
+    private ConcurrentHashMap<Long, RefreshedToken> deferredWrites = new ConcurrentHashMap<>();
+    private Set<CompletableFuture<AccessToken>> deferredRefreshesInFlight = ConcurrentHashMap.newKeySet();
+    private ThreadLocal<Boolean> deferWrites = ThreadLocal.withInitial(() -> false);
+    private TransactionTemplate newTransaction;
+
+    public SpotifyTokenManager(
+            ApplicationProperties applicationProperties,
+            TokenRepository tokenRepository,
+            RestTemplate spotifyRestTemplate,
+            @Qualifier("spotifyExecutor") Executor spotifyExecutor,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.applicationProperties = applicationProperties;
+        this.tokenRepository = tokenRepository;
+        this.spotifyRestTemplate = spotifyRestTemplate;
+        this.spotifyExecutor = spotifyExecutor;
+
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.accessTokens = Caffeine.newBuilder()
+                .maximumSize(applicationProperties.getSpotify().getToken().getMaxHotTokens())
+                .build();
+    }
+
+    /**
+     * Get a valid Authorization header value for the given token
+     * @param userToken user Token entity
+     * @return e.g. "Bearer access_token"
+     */
+    public String getAuthorization(Token userToken) {
+        AccessToken accessToken = this.getAccessToken(userToken);
+        Instant now = Instant.now();
+
+        if(accessToken.expiresAt.isAfter(now.plus(this.getRefreshSkew()))) {
+            return accessToken.authorization;
+        }
+
+        if(accessToken.expiresAt.isAfter(now)) {
+            // still valid: renew it ahead of expiry without blocking this request (skipped if the pool is full)
+            this.refresh(userToken);
+            return accessToken.authorization;
+        }
+
+        return this.join(userToken.getId(), this.refresh(userToken)).authorization;
+    }
+
+    /**
+     * Async version of getAuthorization (async mode): no thread waits for the refresh of an expired token
+     * @param userToken user Token entity
+     * @return the pending Authorization header value, failed after spotify.token.refresh-timeout
+     */
+    public CompletableFuture<String> getAuthorizationAsync(Token userToken) {
+        AccessToken accessToken = this.getAccessToken(userToken);
+        Instant now = Instant.now();
+
+        if(accessToken.expiresAt.isAfter(now)) {
+            if(!accessToken.expiresAt.isAfter(now.plus(this.getRefreshSkew()))) {
+                this.refresh(userToken);
+            }
+
+            return CompletableFuture.completedFuture(accessToken.authorization);
+        }
+
+        Long tokenId = userToken.getId();
+        CompletableFuture<AccessToken> refresh = this.refresh(userToken);
+
+        // the timeout applies to this caller only, not to the refresh shared with the other callers
+        return refresh.thenApply(AccessToken::getAuthorization)
+                .orTimeout(this.applicationProperties.getSpotify().getToken().getRefreshTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    if(e instanceof TimeoutException) {
+                        this.refreshesInFlight.remove(tokenId, refresh);
+                        throw new SpotifyUnavailableException("Token refresh timed out");
+                    }
+
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                });
+    }
+
+    /**
+     * Get a valid Authorization header value of the application (client credentials flow),
+     * it can only be used for the endpoints without user data, e.g. tracks and audio features
+     * @return e.g. "Bearer access_token"
+     */
+    public String getClientAuthorization() {
+        AccessToken accessToken = this.clientToken;
+
+        if(accessToken == null || !accessToken.expiresAt.isAfter(Instant.now().plus(this.getRefreshSkew()))) {
+            accessToken = this.requestClientToken();
+        }
+
+        return accessToken.authorization;
+    }
+
+    /**
+     * Refresh the given token; if a refresh of the same token is in flight the same result is returned
+     * @param userToken user Token entity
+     * @return the pending refreshed access token, failed with SpotifyUnavailableException if the pool is full
+     */
+    public CompletableFuture<AccessToken> refresh(Token userToken) {
+        Long tokenId = userToken.getId();
+        String refreshToken = userToken.getRefresh_token();
+        boolean deferWrite = this.deferWrites.get();
+
+        CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        CompletableFuture<AccessToken> refreshInFlight = this.refreshesInFlight.putIfAbsent(tokenId, refresh);
+
+        if(refreshInFlight != null) {
+            return refreshInFlight;
+        }
+
+        if(deferWrite) {
+            this.deferredRefreshesInFlight.add(refresh);
+        }
+
+        try {
+            this.spotifyExecutor.execute(() -> {
+                try {
+                    refresh.complete(this.refreshAccessToken(tokenId, refreshToken, deferWrite));
+                } catch (RuntimeException e) {
+                    this.logger.warn("Token {} can not be refreshed: {}", tokenId, e.getMessage());
+                    refresh.completeExceptionally(e);
+                } finally {
+                    this.refreshesInFlight.remove(tokenId, refresh);
+                    this.deferredRefreshesInFlight.remove(refresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the next call tries again
+            this.refreshesInFlight.remove(tokenId, refresh);
+            this.deferredRefreshesInFlight.remove(refresh);
+            refresh.completeExceptionally(new SpotifyUnavailableException("Token refresh rejected: too many Spotify requests"));
+        }
+
+        return refresh;
+    }
+
+    /**
+     * Run the task in the current thread with the token refreshes it starts written by flushDeferredWrites
+     * instead of one select and one update each; the refreshed tokens are in the hot view meanwhile
+     * @param task e.g. the playlist refresh of a user in the background job
+     */
+    public void runWithDeferredWrites(Runnable task) {
+        boolean previous = this.deferWrites.get();
+        this.deferWrites.set(true);
+
+        try {
+            task.run();
+        } finally {
+            this.deferWrites.set(previous);
+        }
+    }
+
+    /**
+     * Write the deferred token refreshes: one select of the tokens and their updates as JDBC batches
+     * (hibernate.jdbc.batch_size), a refresh that completes later is written by the next flush;
+     * if the write fails the tokens are queued again for the next flush
+     * @return written tokens
+     */
+    public int flushDeferredWrites() {
+        Map<Long, RefreshedToken> writes = new HashMap<>();
+
+        for (Long tokenId : new ArrayList<>(this.deferredWrites.keySet())) {
+            RefreshedToken refreshedToken = this.deferredWrites.remove(tokenId);
+
+            if(refreshedToken != null) {
+                writes.put(tokenId, refreshedToken);
+            }
+        }
+
+        if(writes.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Objects.requireNonNull(this.newTransaction.execute(status -> {
+                List<Token> tokens = this.tokenRepository.findAllById(writes.keySet());
+                tokens.forEach(token -> writes.get(token.getId()).applyTo(token));
+
+                return tokens.size();
+            }));
+        } catch (RuntimeException e) {
+            // a newer refresh queued meanwhile replaces the failed one
+            writes.forEach(this.deferredWrites::putIfAbsent);
+            this.logger.warn("{} refreshed tokens can not be written, they are queued again: {}", writes.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Last flush of a run: wait for the deferred refreshes in flight (spotify.token.flush-timeout),
+     * so their writes are not left in the queue, then write them
+     * @return written tokens
+     */
+    public int flushDeferredWritesAndWait() {
+        CompletableFuture<?>[] refreshes = this.deferredRefreshesInFlight.toArray(new CompletableFuture[0]);
+
+        try {
+            CompletableFuture.allOf(refreshes)
+                    .get(this.applicationProperties.getSpotify().getToken().getFlushTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // a failed refresh has nothing to write, it's logged by refresh
+        } catch (TimeoutException e) {
+            this.logger.warn("{} token refreshes are still in flight, they are written by the next flush",
+                    this.deferredRefreshesInFlight.size());
+        }
+
+        return this.flushDeferredWrites();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.flushDeferredWritesAndWait();
+    }
+
+    /**
+     * Check if token is expired
+     * @param userToken user Token entity info
+     */
+    public boolean isTokenExpired(Token userToken) {
+        return this.getAccessToken(userToken).expiresAt.isBefore(Instant.now());
+    }
+
+    /**
+     * Method to get user spotify tokens or refresh access token
+     * @return ResponseEntity<TokenDTO> tokens or token info
+     */
+    public ResponseEntity<TokenDTO> getTokenDTOAuthAndRefresh(String urlEndPoint,
+                                                            HttpEntity<MultiValueMap<String, String>> parametersHttpEntity) {
+
+        return this.spotifyRestTemplate.postForEntity(urlEndPoint, parametersHttpEntity, TokenDTO.class);
+    }
+
+    /**
+     * Get HttpHeaders for Authorization flow or refresh access token
+     * @return HttpHeaders for Authorization flow or refresh access token
+     */
+    public HttpHeaders getHttpHeadersAuth() {
+        String stringToBeEncoded =
+                applicationProperties.getSpotify().getClientId() + ":" + applicationProperties.getSpotify().getClientSecret();
+
+        String value = "Basic " + Base64.getEncoder().encodeToString(stringToBeEncoded.getBytes());
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        httpHeaders.add("Authorization", value);
+
+        return httpHeaders;
+    }
+
+    /**
+     * The hot view is used unless the entity is fresher (e.g. refreshed by another replica)
+     */
+    private AccessToken getAccessToken(Token userToken) {
+        AccessToken fromEntity = AccessToken.of(userToken);
+        AccessToken hot = this.accessTokens.getIfPresent(userToken.getId());
+
+        if(hot != null && !hot.expiresAt.isBefore(fromEntity.expiresAt)) {
+            return hot;
+        }
+
+        this.accessTokens.put(userToken.getId(), fromEntity);
+
+        return fromEntity;
+    }
+
+    private AccessToken refreshAccessToken(Long tokenId, String refreshToken, boolean deferWrite) {
+        HttpHeaders httpHeaders = this.getHttpHeadersAuth();
+
+        MultiValueMap<String, String> parameterMap = new LinkedMultiValueMap<>();
+        parameterMap.add("grant_type", "refresh_token");
+        parameterMap.add("refresh_token", refreshToken);
+
+        HttpEntity<MultiValueMap<String, String>> httpEntity =
+                new HttpEntity<>(parameterMap, httpHeaders);
+
+        ResponseEntity<TokenDTO> refreshedToken =
+                this.getTokenDTOAuthAndRefresh(SpotifyConstants.URL_REFRESH_TOKEN, httpEntity);
+
+        if(!refreshedToken.hasBody()) {
+            throw new InternalServerErrorException("response body is empty");
+        }
+
+        RefreshedToken refreshed =
+                new RefreshedToken(Objects.requireNonNull(refreshedToken.getBody()), Timestamp.from(Instant.now()));
+
+        if(deferWrite) {
+            // a later refresh of the same token replaces the pending one
+            this.deferredWrites.put(tokenId, refreshed);
+        } else {
+            Token userToken = this.tokenRepository.findById(tokenId)
+                    .orElseThrow(() -> new InternalServerErrorException("Token can not be found!"));
+
+            refreshed.applyTo(userToken);
+            this.tokenRepository.save(userToken);
+        }
+
+        AccessToken accessToken = new AccessToken(
+                refreshed.tokenDTO.getToken_type() + " " + refreshed.tokenDTO.getAccess_token(),
+                refreshed.lastUpdateTime.toInstant().plusSeconds(refreshed.tokenDTO.getExpires_in())
+        );
+        this.accessTokens.put(tokenId, accessToken);
+
+        return accessToken;
+    }
+
+    private AccessToken requestClientToken() {
+        // concurrent callers wait for the same request (a lock instead of synchronized: it doesn't pin virtual threads)
+        this.clientTokenLock.lock();
+
+        try {
+            AccessToken accessToken = this.clientToken;
+
+            if(accessToken != null && accessToken.expiresAt.isAfter(Instant.now().plus(this.getRefreshSkew()))) {
+                return accessToken;
+            }
+
+            MultiValueMap<String, String> parameterMap = new LinkedMultiValueMap<>();
+            parameterMap.add("grant_type", "client_credentials");
+
+            ResponseEntity<TokenDTO> clientTokenResponse = this.getTokenDTOAuthAndRefresh(
+                    SpotifyConstants.URL_EXCHANGE_TOKEN, new HttpEntity<>(parameterMap, this.getHttpHeadersAuth()));
+
+            if(!clientTokenResponse.hasBody()) {
+                throw new InternalServerErrorException("response body is empty");
+            }
+
+            TokenDTO tokenDTO = Objects.requireNonNull(clientTokenResponse.getBody());
+
+            accessToken = new AccessToken(tokenDTO.getToken_type() + " " + tokenDTO.getAccess_token(),
+                    Instant.now().plusSeconds(tokenDTO.getExpires_in()));
+
+            this.clientToken = accessToken;
+
+            return accessToken;
+        } finally {
+            this.clientTokenLock.unlock();
+        }
+    }
+
+    private Duration getRefreshSkew() {
+        return this.applicationProperties.getSpotify().getToken().getRefreshSkew();
+    }
+
+    private AccessToken join(Long tokenId, CompletableFuture<AccessToken> future) {
+        try {
+            return future.get(this.applicationProperties.getSpotify().getToken().getRefreshTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            // a refresh that never completes (e.g. dropped by the executor shutdown) must not block the next calls
+            this.refreshesInFlight.remove(tokenId, future);
+            throw new SpotifyUnavailableException("Token refresh timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SpotifyUnavailableException("Token refresh interrupted");
+        }
+    }
+
+    /**
+     * Response of a token refresh to write in the Token entity
+     */
+    private static class RefreshedToken {
+
+        private final TokenDTO tokenDTO;
+        private final Timestamp lastUpdateTime;
+
+        private RefreshedToken(TokenDTO tokenDTO, Timestamp lastUpdateTime) {
+            this.tokenDTO = tokenDTO;
+            this.lastUpdateTime = lastUpdateTime;
+        }
+
+        private void applyTo(Token userToken) {
+            userToken.setAccess_token(this.tokenDTO.getAccess_token());
+            userToken.setScope(this.tokenDTO.getScope());
+            userToken.setExpires_in(this.tokenDTO.getExpires_in());
+            userToken.setToken_type(this.tokenDTO.getToken_type());
+            userToken.setLastUpdateTime(this.lastUpdateTime);
+
+            if(this.tokenDTO.getRefresh_token() != null) {
+                userToken.setRefresh_token(this.tokenDTO.getRefresh_token());
+            }
+        }
+    }
+
+    /**
+     * Immutable view of a valid access token
+     */
+    public static class AccessToken {
+
+        private final String authorization;
+        private final Instant expiresAt;
+
+        private AccessToken(String authorization, Instant expiresAt) {
+            this.authorization = authorization;
+            this.expiresAt = expiresAt;
+        }
+
+        private static AccessToken of(Token userToken) {
+            return new AccessToken(
+                    userToken.getToken_type() + " " + userToken.getAccess_token(),
+                    userToken.getLastUpdateTime().toInstant().plusSeconds(userToken.getExpires_in())
+            );
+        }
+
+        public String getAuthorization() {
+            return authorization;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Component to keep the last suggested tracks of each user by user id.
+ * Only the track ids are cached (the full tracks are in the catalog cache), so the values are small
+ * and can be shared by the replicas (coherent cache in distributed mode).
+ */
+
+@Component
+public class SuggestionCache {
+
+    public static final String SUGGESTIONS_CACHE = "suggestions";
+
+    private Cache suggestionsCache;
+
+    public SuggestionCache(CacheManager cacheManager) {
+        this.suggestionsCache = Objects.requireNonNull(cacheManager.getCache(SUGGESTIONS_CACHE));
+    }
+
+    /**
+     * @param userId user id
+     * @param engine engine of the suggestions
+     * @return the last suggestions of the user if they were generated by the given engine
+     */
+    public Optional<Suggestions> get(Long userId, ApplicationProperties.Recommendations.Engine engine) {
+        return Optional.ofNullable(this.suggestionsCache.get(userId, Suggestions.class))
+                .filter(suggestions -> suggestions.getEngine() == engine);
+    }
+
+    public void put(Long userId, ApplicationProperties.Recommendations.Engine engine, List<String> trackIds) {
+        this.suggestionsCache.put(userId, new Suggestions(engine, trackIds, Instant.now()));
+    }
+
+    public void evict(Long userId) {
+        this.suggestionsCache.evict(userId);
+    }
+
+    /**
+     * Suggested track ids with their generation time
+     */
+    public static class Suggestions implements Serializable {
+
+        private final ApplicationProperties.Recommendations.Engine engine;
+        private final ArrayList<String> trackIds;
+        private final Instant generatedAt;
+
+        private Suggestions(ApplicationProperties.Recommendations.Engine engine, List<String> trackIds, Instant generatedAt) {
+            this.engine = engine;
+            this.trackIds = new ArrayList<>(trackIds);
+            this.generatedAt = generatedAt;
+        }
+
+        public ApplicationProperties.Recommendations.Engine getEngine() {
+            return engine;
+        }
+
+        public List<String> getTrackIds() {
+            return trackIds;
+        }
+
+        public Instant getGeneratedAt() {
+            return generatedAt;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.PlayHistory;
+import com.edtech.plugtify.domain.TasteProfile;
+import com.edtech.plugtify.repository.PlayHistoryRepository;
+import com.edtech.plugtify.repository.TasteProfileRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Component to keep the taste profile of the users.
+ * Each new play is folded once in time decayed running statistics (weighted mean and variance)
+ * of the audio features and the popularity of the played tracks, and in decayed scores of the played artists,
+ * so a suggestion doesn't recompute the profile from the whole play history.
+ */
+
+@Service
+public class TasteProfileService {
+
+    // audio features followed by the popularity
+    public static final int POPULARITY = TrackFeatureIndex.DIMENSIONS;
+    public static final int STATISTICS = TrackFeatureIndex.DIMENSIONS + 1;
+
+    // plays folded per update, the rest are folded by the next update
+    private static final int MAX_PLAYS_PER_UPDATE = 1000;
+
+    // attempts of an update when concurrent updates of the same profile are stored first
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private ApplicationProperties applicationProperties;
+    private TasteProfileRepository tasteProfileRepository;
+    private PlayHistoryRepository playHistoryRepository;
+    private TrackFeatureStore trackFeatureStore;
+
+    public TasteProfileService(
+            ApplicationProperties applicationProperties,
+            TasteProfileRepository tasteProfileRepository,
+            PlayHistoryRepository playHistoryRepository,
+            TrackFeatureStore trackFeatureStore
+    ) {
+        this.applicationProperties = applicationProperties;
+        this.tasteProfileRepository = tasteProfileRepository;
+        this.playHistoryRepository = playHistoryRepository;
+        this.trackFeatureStore = trackFeatureStore;
+    }
+
+    /**
+     * Get the stored plays that are not in the taste profile of the user.
+     * A new profile starts from the last profile-plays plays.
+     * @param userId user id
+     * @return plays, the oldest first
+     */
+    public List<PlayHistory> getPlaysToFold(Long userId) {
+        Optional<TasteProfile> tasteProfile = this.tasteProfileRepository.findById(userId);
+
+        if(tasteProfile.isPresent() && tasteProfile.get().getLastPlayedAt() != null) {
+            return this.playHistoryRepository.findByUserIdAndPlayedAtAfterOrderByPlayedAtAsc(
+                    userId, tasteProfile.get().getLastPlayedAt(), PageRequest.of(0, MAX_PLAYS_PER_UPDATE));
+        }
+
+        int profilePlays = this.applicationProperties.getPlayHistory().getProfilePlays();
+
+        List<PlayHistory> plays = new ArrayList<>(
+                this.playHistoryRepository.findByUserIdOrderByPlayedAtDesc(userId, PageRequest.of(0, profilePlays)));
+
+        Collections.reverse(plays);
+
+        return plays;
+    }
+
+    /**
+     * Fold the given plays in the taste profile of the user and store it.
+     * The features of the played tracks must be in the TrackFeatureStore, plays without features only decay the profile.
+     * When a concurrent update stores the profile first (optimistic lock), the update is folded again
+     * in the stored profile, the plays already folded by the other update are skipped.
+     * @param userId user id
+     * @param plays plays returned by getPlaysToFold, the oldest first
+     * @return the updated taste profile
+     */
+    public Taste update(Long userId, List<PlayHistory> plays) {
+        for (int attempt = 1; ; attempt++) {
+            TasteProfile tasteProfile = this.tasteProfileRepository.findById(userId).orElseGet(() -> this.newTasteProfile(userId));
+
+            try {
+                return this.fold(tasteProfile, plays);
+            } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+                if(attempt == MAX_UPDATE_ATTEMPTS) {
+                    // the plays are folded by the next update
+                    return Taste.of(this.tasteProfileRepository.findById(userId).orElse(tasteProfile));
+                }
+            }
+        }
+    }
+
+    private Taste fold(TasteProfile tasteProfile, List<PlayHistory> newPlays) {
+        ApplicationProperties.Recommendations properties = this.applicationProperties.getRecommendations();
+
+        // plays folded by a concurrent update are skipped
+        Timestamp foldedUntil = tasteProfile.getLastPlayedAt();
+        List<PlayHistory> plays = foldedUntil == null ? newPlays : newPlays.stream()
+                .filter(play -> play.getPlayedAt().after(foldedUntil))
+                .collect(Collectors.toList());
+
+        if(plays.isEmpty()) {
+            return Taste.of(tasteProfile);
+        }
+
+        float[] means = new float[STATISTICS];
+        float[] deviations = new float[STATISTICS]; // weighted sums of squared deviations
+        this.decode(tasteProfile.getStatistics(), means, deviations);
+
+        Map<String, Double> artists = this.decodeArtists(tasteProfile.getTopArtists());
+
+        double halfLife = properties.getTasteHalfLife().toMillis();
+        double weight = tasteProfile.getWeight();
+        int folded = tasteProfile.getPlays();
+        Timestamp lastPlayedAt = tasteProfile.getLastPlayedAt();
+
+        float[] features = new float[STATISTICS];
+
+        for (PlayHistory play : plays) {
+            Timestamp playedAt = play.getPlayedAt();
+
+            // the older plays weigh half each half life
+            double decay = lastPlayedAt == null ? 1
+                    : Math.pow(0.5, Math.max(0, playedAt.getTime() - lastPlayedAt.getTime()) / halfLife);
+
+            lastPlayedAt = playedAt;
+
+            if(decay < 1) {
+                weight *= decay;
+
+                for (int i = 0; i < STATISTICS; i++) {
+                    deviations[i] *= decay;
+                }
+
+                artists.replaceAll((artistId, score) -> score * decay);
+            }
+
+            if(play.getArtistId() != null) {
+                artists.merge(play.getArtistId(), 1d, Double::sum);
+
+                if(artists.size() > properties.getTopArtists()) {
+                    artists.remove(Collections.min(artists.entrySet(), Map.Entry.comparingByValue()).getKey());
+                }
+            }
+
+            if(!this.trackFeatureStore.getFeatures(play.getTrackId(), features)) {
+                continue;
+            }
+
+            // weighted incremental mean and variance (West)
+            weight += 1;
+            folded++;
+
+            for (int i = 0; i < STATISTICS; i++) {
+                float delta = features[i] - means[i];
+                means[i] += delta / weight;
+                deviations[i] += delta * (features[i] - means[i]);
+            }
+        }
+
+        tasteProfile.setLastPlayedAt(lastPlayedAt);
+        tasteProfile.setWeight(weight);
+        tasteProfile.setPlays(folded);
+        tasteProfile.setStatistics(this.encode(means, deviations));
+        tasteProfile.setTopArtists(this.encodeArtists(artists));
+
+        return Taste.of(this.tasteProfileRepository.save(tasteProfile));
+    }
+
+    private TasteProfile newTasteProfile(Long userId) {
+        TasteProfile tasteProfile = new TasteProfile();
+        tasteProfile.setUserId(userId);
+        tasteProfile.setStatistics(this.encode(new float[STATISTICS], new float[STATISTICS]));
+
+        return tasteProfile;
+    }
+
+    private byte[] encode(float[] means, float[] deviations) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * STATISTICS * Float.BYTES);
+        buffer.asFloatBuffer().put(means).put(deviations);
+
+        return buffer.array();
+    }
+
+    private void decode(byte[] statistics, float[] means, float[] deviations) {
+        // profiles stored with other statistics start again
+        if(statistics == null || statistics.length != 2 * STATISTICS * Float.BYTES) {
+            return;
+        }
+
+        ByteBuffer.wrap(statistics).asFloatBuffer().get(means).get(deviations);
+    }
+
+    private String encodeArtists(Map<String, Double> artists) {
+        return artists.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(artist -> artist.getKey() + ":" + (float) artist.getValue().doubleValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private Map<String, Double> decodeArtists(String topArtists) {
+        Map<String, Double> artists = new HashMap<>();
+
+        if(topArtists == null || topArtists.isEmpty()) {
+            return artists;
+        }
+
+        for (String artist : topArtists.split(",")) {
+            int separator = artist.lastIndexOf(':');
+
+            if(separator > 0) {
+                artists.put(artist.substring(0, separator), Double.parseDouble(artist.substring(separator + 1)));
+            }
+        }
+
+        return artists;
+    }
+
+    /**
+     * Immutable view of a taste profile
+     */
+    public static class Taste {
+
+        private final float[] means;
+        private final float[] standardDeviations;
+        private final int plays;
+        private final List<String> topArtists;
+
+        private Taste(float[] means, float[] standardDeviations, int plays, List<String> topArtists) {
+            this.means = means;
+            this.standardDeviations = standardDeviations;
+            this.plays = plays;
+            this.topArtists = topArtists;
+        }
+
+        private static Taste of(TasteProfile tasteProfile) {
+            float[] means = new float[STATISTICS];
+            float[] deviations = new float[STATISTICS];
+
+            ByteBuffer statistics = ByteBuffer.wrap(tasteProfile.getStatistics());
+
+            if(statistics.capacity() == 2 * STATISTICS * Float.BYTES) {
+                statistics.asFloatBuffer().get(means).get(deviations);
+            }
+
+            float[] standardDeviations = new float[STATISTICS];
+
+            if(tasteProfile.getWeight() > 0) {
+                for (int i = 0; i < STATISTICS; i++) {
+                    standardDeviations[i] = (float) Math.sqrt(Math.max(0, deviations[i]) / tasteProfile.getWeight());
+                }
+            }
+
+            List<String> topArtists = new ArrayList<>();
+
+            if(tasteProfile.getTopArtists() != null && !tasteProfile.getTopArtists().isEmpty()) {
+                // stored by score, the highest first
+                for (String artist : tasteProfile.getTopArtists().split(",")) {
+                    topArtists.add(artist.substring(0, artist.lastIndexOf(':')));
+                }
+            }
+
+            return new Taste(means, standardDeviations, tasteProfile.getPlays(), Collections.unmodifiableList(topArtists));
+        }
+
+        /**
+         * @param statistic TrackFeatureIndex dimension or POPULARITY
+         */
+        public float getMean(int statistic) {
+            return means[statistic];
+        }
+
+        /**
+         * @param statistic TrackFeatureIndex dimension or POPULARITY
+         */
+        public float getStandardDeviation(int statistic) {
+            return standardDeviations[statistic];
+        }
+
+        /**
+         * @return mean audio features, TrackFeatureIndex.DIMENSIONS values
+         */
+        public float[] getFeatureMeans() {
+            return Arrays.copyOf(means, TrackFeatureIndex.DIMENSIONS);
+        }
+
+        public int getPopularity() {
+            return Math.round(means[POPULARITY]);
+        }
+
+        /**
+         * @return plays with features folded in the profile
+         */
+        public int getPlays() {
+            return plays;
+        }
+
+        /**
+         * @return artist ids, the most played (recently) first
+         */
+        public List<String> getTopArtists() {
+            return topArtists;
+        }
+    }
+}
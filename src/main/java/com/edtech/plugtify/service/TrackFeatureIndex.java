@@ -0,0 +1,270 @@
+package com.edtech.plugtify.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the track audio features, one primitive array per feature (struct of arrays).
+ * A track is a row: its features are at the same position of every array,
+ * so a profile is computed with a few array reads per track, without DTOs,
+ * and the nearest tracks to a profile are found with a sequential scan of the arrays.
+ * Writes are synchronized, reads are lock free.
+ */
+
+public class TrackFeatureIndex {
+
+    public static final int ACOUSTICNESS = 0;
+    public static final int DANCEABILITY = 1;
+    public static final int ENERGY = 2;
+    public static final int INSTRUMENTALNESS = 3;
+    public static final int LIVENESS = 4;
+    public static final int SPEECHINESS = 5;
+    public static final int VALENCE = 6;
+    public static final int TEMPO = 7;
+    public static final int DIMENSIONS = 8;
+
+    // scale of each feature in the distance between tracks: all of them in [0, 1] (tempo is in BPM)
+    private static final float[] SCALE = {1, 1, 1, 1, 1, 1, 1, 1 / 250f};
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> rows = new ConcurrentHashMap<>();
+
+    // columns[feature][row], replaced (not modified in size) when the index grows
+    private volatile float[][] columns = new float[DIMENSIONS][INITIAL_CAPACITY];
+    private volatile int[] popularity = new int[INITIAL_CAPACITY];
+    private volatile String[] ids = new String[INITIAL_CAPACITY];
+    private int size;
+
+    // rows visible to the scans
+    private volatile int publishedSize;
+
+    /**
+     * Add or replace the features of a track
+     * @param trackId track id
+     * @param features features by dimension, e.g. features[ENERGY]
+     * @param trackPopularity 0-100 value
+     */
+    public synchronized void put(String trackId, float[] features, int trackPopularity) {
+        Integer row = this.rows.get(trackId);
+
+        if(row == null) {
+            row = this.size;
+            this.ensureCapacity(this.size + 1);
+            this.size++;
+        }
+
+        float[][] columns = this.columns;
+
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            columns[dimension][row] = features[dimension];
+        }
+
+        this.popularity[row] = trackPopularity;
+        this.ids[row] = trackId;
+
+        // the row is visible to the readers after its values are written
+        this.rows.put(trackId, row);
+        this.publishedSize = this.size;
+    }
+
+    /**
+     * Copy the features of a track
+     * @param trackId track id
+     * @param features destination, the DIMENSIONS features followed by the popularity
+     * @return false if the track is not in the index
+     */
+    public boolean copy(String trackId, float[] features) {
+        Integer row = this.rows.get(trackId);
+
+        if(row == null) {
+            return false;
+        }
+
+        float[][] columns = this.columns;
+
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            features[dimension] = columns[dimension][row];
+        }
+
+        features[DIMENSIONS] = this.popularity[row];
+
+        return true;
+    }
+
+    public boolean contains(String trackId) {
+        return this.rows.containsKey(trackId);
+    }
+
+    public int size() {
+        return this.rows.size();
+    }
+
+    /**
+     * Average features of the given tracks, the tracks that are not in the index are ignored
+     * @param trackIds track ids
+     * @return the profile, its tracks count is 0 if no track is in the index
+     */
+    public Profile profile(Collection<String> trackIds) {
+        double[] sums = new double[DIMENSIONS];
+        long popularitySum = 0;
+        int tracks = 0;
+
+        for (String trackId : trackIds) {
+            Integer row = this.rows.get(trackId);
+
+            if(row == null) {
+                continue;
+            }
+
+            // read after the row: the arrays contain it
+            float[][] columns = this.columns;
+
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                sums[dimension] += columns[dimension][row];
+            }
+
+            popularitySum += this.popularity[row];
+            tracks++;
+        }
+
+        float[] means = new float[DIMENSIONS];
+
+        for (int dimension = 0; tracks > 0 && dimension < DIMENSIONS; dimension++) {
+            means[dimension] = (float) (sums[dimension] / tracks);
+        }
+
+        return new Profile(means, tracks > 0 ? (int) (popularitySum / tracks) : 0, tracks);
+    }
+
+    /**
+     * @param features features by dimension
+     * @return the scaled features, the euclidean distance of these vectors is the distance between tracks
+     */
+    public static float[] vector(float[] features) {
+        float[] vector = new float[DIMENSIONS];
+
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            vector[dimension] = features[dimension] * SCALE[dimension];
+        }
+
+        return vector;
+    }
+
+    /**
+     * Exact nearest tracks to the target features (euclidean distance of the scaled features)
+     * @param target features by dimension, e.g. profile means
+     * @param minPopularity tracks less popular are ignored
+     * @param k max number of tracks
+     * @param excluded track ids to ignore, e.g. tracks already played
+     * @return track ids, the nearest first
+     */
+    public List<String> nearest(float[] target, int minPopularity, int k, Set<String> excluded) {
+        // read the size first: the arrays contain all the published rows
+        int rowCount = this.publishedSize;
+        float[][] columns = this.columns;
+        int[] popularity = this.popularity;
+        String[] ids = this.ids;
+
+        // max heap of the best k rows, the root is the farthest one
+        PriorityQueue<Neighbour> neighbours = new PriorityQueue<>(k + 1, Comparator.comparingDouble((Neighbour n) -> n.distance).reversed());
+
+        for (int row = 0; row < rowCount; row++) {
+            if(popularity[row] < minPopularity) {
+                continue;
+            }
+
+            double distance = 0;
+
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                double difference = (columns[dimension][row] - target[dimension]) * SCALE[dimension];
+                distance += difference * difference;
+            }
+
+            if(neighbours.size() == k && distance >= neighbours.peek().distance) {
+                continue;
+            }
+
+            if(excluded.contains(ids[row])) {
+                continue;
+            }
+
+            neighbours.add(new Neighbour(row, distance));
+
+            if(neighbours.size() > k) {
+                neighbours.poll();
+            }
+        }
+
+        String[] nearest = new String[neighbours.size()];
+
+        for (int i = nearest.length - 1; i >= 0; i--) {
+            nearest[i] = ids[neighbours.poll().row];
+        }
+
+        return Arrays.asList(nearest);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity <= this.popularity.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, this.popularity.length * 2);
+        float[][] newColumns = new float[DIMENSIONS][];
+
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            newColumns[dimension] = Arrays.copyOf(this.columns[dimension], newCapacity);
+        }
+
+        this.popularity = Arrays.copyOf(this.popularity, newCapacity);
+        this.ids = Arrays.copyOf(this.ids, newCapacity);
+        this.columns = newColumns;
+    }
+
+    private static class Neighbour {
+
+        private final int row;
+        private final double distance;
+
+        private Neighbour(int row, double distance) {
+            this.row = row;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Average features of a set of tracks
+     */
+    public static class Profile {
+
+        private final float[] means;
+        private final int popularity;
+        private final int tracks;
+
+        private Profile(float[] means, int popularity, int tracks) {
+            this.means = means;
+            this.popularity = popularity;
+            this.tracks = tracks;
+        }
+
+        /**
+         * @param dimension e.g. TrackFeatureIndex.ENERGY
+         */
+        public float getMean(int dimension) {
+            return means[dimension];
+        }
+
+        public int getPopularity() {
+            return popularity;
+        }
+
+        public int getTracks() {
+            return tracks;
+        }
+
+        public float[] getMeans() {
+            return means.clone();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Component to merge full track objects with their audio features.
+ * The features are indexed by track id once, so the merge is O(tracks + features).
+ * The given tracks are not changed: they can be shared by other requests (SpotifyCatalogCache).
+ */
+
+@Component
+public class TrackFeatureJoiner {
+
+    /**
+     * Copy each track with its audio feature.
+     * Spotify returns null entries for tracks it doesn't know (e.g. local tracks),
+     * null tracks are dropped and tracks without features have a null audio_feature.
+     * @param tracks full track objects
+     * @param audioFeatures audio features in any order
+     * @return copies of the tracks with its audio feature
+     */
+    public SpotifyTrackDTO[] join(SpotifyTrackDTO[] tracks, SpotifyAudioFeaturesDTO[] audioFeatures) {
+        return this.join(tracks, this.indexById(audioFeatures));
+    }
+
+    /**
+     * Copy each track with its audio feature from features already indexed by track id.
+     * @param tracks full track objects
+     * @param featuresById audio features by track id
+     * @return copies of the tracks with its audio feature
+     */
+    public SpotifyTrackDTO[] join(SpotifyTrackDTO[] tracks, Map<String, SpotifyAudioFeaturesDTO> featuresById) {
+        if(tracks == null) {
+            return new SpotifyTrackDTO[0];
+        }
+
+        return Arrays.stream(tracks)
+                .filter(Objects::nonNull)
+                .map(track -> this.withAudioFeature(track, featuresById.get(track.getId())))
+                .toArray(SpotifyTrackDTO[]::new);
+    }
+
+    private SpotifyTrackDTO withAudioFeature(SpotifyTrackDTO track, SpotifyAudioFeaturesDTO audioFeature) {
+        SpotifyTrackDTO copy = new SpotifyTrackDTO();
+        copy.setAlbum(track.getAlbum());
+        copy.setArtists(track.getArtists());
+        copy.setDuration_ms(track.getDuration_ms());
+        copy.setExternal_urls(track.getExternal_urls());
+        copy.setId(track.getId());
+        copy.setIs_playable(track.getIs_playable());
+        copy.setName(track.getName());
+        copy.setPopularity(track.getPopularity());
+        copy.setPreview_url(track.getPreview_url());
+        copy.setType(track.getType());
+        copy.setUri(track.getUri());
+        copy.setAudio_feature(audioFeature);
+
+        return copy;
+    }
+
+    private Map<String, SpotifyAudioFeaturesDTO> indexById(SpotifyAudioFeaturesDTO[] audioFeatures) {
+        if(audioFeatures == null) {
+            return Map.of();
+        }
+
+        Map<String, SpotifyAudioFeaturesDTO> featuresById = new HashMap<>(audioFeatures.length * 4 / 3 + 1);
+
+        for (SpotifyAudioFeaturesDTO audioFeature : audioFeatures) {
+            if(audioFeature != null && audioFeature.getId() != null) {
+                featuresById.putIfAbsent(audioFeature.getId(), audioFeature);
+            }
+        }
+
+        return featuresById;
+    }
+}
@@ -0,0 +1,245 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.TrackFeatures;
+import com.edtech.plugtify.repository.TrackFeaturesRepository;
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Component to store the audio features of the tracks.
+ * The features are persisted in tbl_track_features and loaded in a TrackFeatureIndex,
+ * so the profile of a user is computed without requests to Spotify for the known tracks.
+ * The nearest tracks to a profile are searched in an HnswIndex (approximate) when the catalog is big enough,
+ * the graph is saved to a snapshot file so it isn't built again at each start.
+ */
+
+@Service
+public class TrackFeatureStore {
+
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    private Logger logger = LoggerFactory.getLogger(TrackFeatureStore.class);
+
+    private ApplicationProperties.Recommendations.Ann annProperties;
+    private TrackFeaturesRepository trackFeaturesRepository;
+    private TransactionTemplate newTransaction;
+
+    private TrackFeatureIndex trackFeatureIndex = new TrackFeatureIndex();
+    private volatile HnswIndex hnswIndex;
+
+    public TrackFeatureStore(
+            ApplicationProperties applicationProperties,
+            TrackFeaturesRepository trackFeaturesRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.annProperties = applicationProperties.getRecommendations().getAnn();
+        this.trackFeaturesRepository = trackFeaturesRepository;
+
+        if(this.annProperties.isEnabled()) {
+            this.hnswIndex = this.newHnswIndex();
+        }
+
+        // a concurrent insert of the same track must not roll back the caller transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Load the stored features in the indexes, only the tracks that are not in the snapshot are inserted in the graph
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if(this.annProperties.isEnabled()) {
+            try {
+                HnswIndex.load(this.getSnapshotPath(), TrackFeatureIndex.DIMENSIONS, this.annProperties.getM(), this.annProperties.getEfConstruction())
+                        .ifPresent(snapshot -> this.hnswIndex = snapshot);
+            } catch (IOException e) {
+                this.logger.warn("Track features snapshot can not be read: {}", e.getMessage());
+            }
+        }
+
+        Page<TrackFeatures> page;
+        int pageNumber = 0;
+
+        do {
+            page = this.trackFeaturesRepository.findAll(PageRequest.of(pageNumber++, LOAD_PAGE_SIZE));
+            page.forEach(this::index);
+        } while(page.hasNext());
+
+        this.logger.info("{} track features loaded", this.trackFeatureIndex.size());
+    }
+
+    /**
+     * Save the graph of the ANN index if new tracks were inserted
+     */
+    @PreDestroy
+    @Scheduled(fixedDelay = 600000)
+    public void saveSnapshot() {
+        HnswIndex hnswIndex = this.hnswIndex;
+
+        if(hnswIndex == null) {
+            return;
+        }
+
+        try {
+            if(hnswIndex.saveIfDirty(this.getSnapshotPath())) {
+                this.logger.info("Track features snapshot saved, {} tracks", hnswIndex.size());
+            }
+        } catch (IOException e) {
+            this.logger.warn("Track features snapshot can not be saved: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param trackIds track ids
+     * @return ids without features in the index or in the database (stored by another replica)
+     */
+    public Set<String> getMissingIds(Collection<String> trackIds) {
+        Set<String> missingIds = trackIds.stream()
+                .filter(id -> !this.trackFeatureIndex.contains(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if(!missingIds.isEmpty()) {
+            this.trackFeaturesRepository.findAllById(missingIds).forEach(trackFeatures -> {
+                this.index(trackFeatures);
+                missingIds.remove(trackFeatures.getTrackId());
+            });
+        }
+
+        return missingIds;
+    }
+
+    /**
+     * Store the features of the tracks that are not stored yet
+     * @param tracks tracks with its audio feature, tracks without audio feature are ignored
+     */
+    public void store(SpotifyTrackDTO[] tracks) {
+        Map<String, TrackFeatures> newFeatures = new LinkedHashMap<>();
+
+        for (SpotifyTrackDTO track : tracks) {
+            if(track == null || track.getId() == null || track.getAudio_feature() == null
+                    || this.trackFeatureIndex.contains(track.getId())) {
+                continue;
+            }
+
+            newFeatures.putIfAbsent(track.getId(), this.toTrackFeatures(track));
+        }
+
+        if(newFeatures.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.newTransaction.execute(status -> this.trackFeaturesRepository.saveAll(newFeatures.values()));
+        } catch (DataIntegrityViolationException e) {
+            // some tracks were stored by a concurrent request and the whole batch was rolled back:
+            // the tracks are saved one by one, so the other ones are stored too
+            this.logger.debug("Track features already stored, saving them one by one");
+            newFeatures.values().forEach(this::saveIfAbsent);
+        }
+
+        // indexed once stored: a track that can't be stored is not skipped by the next calls
+        newFeatures.values().forEach(this::index);
+    }
+
+    private void saveIfAbsent(TrackFeatures trackFeatures) {
+        try {
+            this.newTransaction.execute(status -> this.trackFeaturesRepository.save(trackFeatures));
+        } catch (DataIntegrityViolationException e) {
+            // stored by a concurrent request, the features of a track don't change
+        }
+    }
+
+    /**
+     * @param trackId track id
+     * @param features destination, the TrackFeatureIndex.DIMENSIONS features followed by the popularity
+     * @return false if the features of the track are not stored
+     */
+    public boolean getFeatures(String trackId, float[] features) {
+        return this.trackFeatureIndex.copy(trackId, features);
+    }
+
+    /**
+     * @param target target features
+     * @param minPopularity tracks less popular are ignored
+     * @param limit max number of tracks
+     * @param excluded track ids to ignore
+     * @return ids of the stored tracks nearest to the target
+     */
+    public List<String> getNearest(float[] target, int minPopularity, int limit, Set<String> excluded) {
+        HnswIndex hnswIndex = this.hnswIndex;
+
+        if(hnswIndex != null && hnswIndex.size() >= this.annProperties.getMinTracks()) {
+            return hnswIndex.search(TrackFeatureIndex.vector(target), limit, this.annProperties.getEfSearch(), minPopularity, excluded);
+        }
+
+        // exact search, fast enough for a small catalog
+        return this.trackFeatureIndex.nearest(target, minPopularity, limit, excluded);
+    }
+
+    private void index(TrackFeatures trackFeatures) {
+        float[] features = new float[TrackFeatureIndex.DIMENSIONS];
+        features[TrackFeatureIndex.ACOUSTICNESS] = trackFeatures.getAcousticness();
+        features[TrackFeatureIndex.DANCEABILITY] = trackFeatures.getDanceability();
+        features[TrackFeatureIndex.ENERGY] = trackFeatures.getEnergy();
+        features[TrackFeatureIndex.INSTRUMENTALNESS] = trackFeatures.getInstrumentalness();
+        features[TrackFeatureIndex.LIVENESS] = trackFeatures.getLiveness();
+        features[TrackFeatureIndex.SPEECHINESS] = trackFeatures.getSpeechiness();
+        features[TrackFeatureIndex.VALENCE] = trackFeatures.getValence();
+        features[TrackFeatureIndex.TEMPO] = trackFeatures.getTempo();
+
+        this.trackFeatureIndex.put(trackFeatures.getTrackId(), features, trackFeatures.getPopularity());
+
+        HnswIndex hnswIndex = this.hnswIndex;
+
+        if(hnswIndex != null) {
+            hnswIndex.insert(trackFeatures.getTrackId(), TrackFeatureIndex.vector(features), trackFeatures.getPopularity());
+        }
+    }
+
+    private HnswIndex newHnswIndex() {
+        return new HnswIndex(TrackFeatureIndex.DIMENSIONS, this.annProperties.getM(), this.annProperties.getEfConstruction());
+    }
+
+    private Path getSnapshotPath() {
+        return Paths.get(this.annProperties.getSnapshotPath());
+    }
+
+    private TrackFeatures toTrackFeatures(SpotifyTrackDTO track) {
+        SpotifyAudioFeaturesDTO audioFeature = track.getAudio_feature();
+
+        TrackFeatures trackFeatures = new TrackFeatures();
+        trackFeatures.setTrackId(track.getId());
+        trackFeatures.setAcousticness(audioFeature.getAcousticness());
+        trackFeatures.setDanceability(audioFeature.getDanceability());
+        trackFeatures.setEnergy(audioFeature.getEnergy());
+        trackFeatures.setInstrumentalness(audioFeature.getInstrumentalness());
+        trackFeatures.setLiveness(audioFeature.getLiveness());
+        trackFeatures.setSpeechiness(audioFeature.getSpeechiness());
+        trackFeatures.setValence(audioFeature.getValence());
+        trackFeatures.setTempo(audioFeature.getTempo());
+        trackFeatures.setPopularity(track.getPopularity());
+
+        return trackFeatures;
+    }
+}
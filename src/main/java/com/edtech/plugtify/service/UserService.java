@@ -2,7 +2,8 @@ package com.edtech.plugtify.service;
 
 import com.edtech.plugtify.domain.User;
 import com.edtech.plugtify.repository.UserRepository;
-import com.edtech.plugtify.security.SecurityUtils;
+import com.edtech.plugtify.security.AuthenticationCache;
+import com.edtech.plugtify.security.TokenRevocations;
 import com.edtech.plugtify.service.dto.UserDTO;
 import com.edtech.plugtify.web.rest.errors.EmailAlreadyUsedException;
 import com.edtech.plugtify.web.rest.errors.LoginAlreadyUsedException;
@@ -32,14 +33,23 @@ public class UserService {
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
     private CacheManager cacheManager;
+    private CurrentUserResolver currentUserResolver;
+    private AuthenticationCache authenticationCache;
+    private TokenRevocations tokenRevocations;
 
     public UserService(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
-            CacheManager cacheManager) {
+            CacheManager cacheManager,
+            CurrentUserResolver currentUserResolver,
+            AuthenticationCache authenticationCache,
+            TokenRevocations tokenRevocations) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.cacheManager = cacheManager;
+        this.currentUserResolver = currentUserResolver;
+        this.authenticationCache = authenticationCache;
+        this.tokenRevocations = tokenRevocations;
     }
 
     /**
@@ -87,21 +97,26 @@ public class UserService {
      * @param principalName login user
      */
     public void deleteUser(String principalName) {
-        this.userRepository.findOneByLogin(principalName).ifPresent(user -> {
+        this.currentUserResolver.getUser(principalName).ifPresent(user -> {
             this.userRepository.delete(user);
             this.clearUserCaches(user);
+            this.currentUserResolver.evict(principalName);
+            // the access tokens of the stateless mode are not valid anymore
+            this.tokenRevocations.revoke(user.getId());
         });
     }
 
     @Transactional(readOnly = true) // this method is readOnly = true the transaction to delete a user that comes from this method will not have effect
     public Optional<User> getCurrentUser() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneByLogin);
+        // resolved once per request, with its token
+        return this.currentUserResolver.getCurrentUser();
     }
 
     // Clear cache by the given cache names
     private void clearUserCaches(User user) {
         Objects.requireNonNull(this.cacheManager.getCache(this.userRepository.USER_BY_LOGIN_CACHE)).evict(user.getLogin());
         Objects.requireNonNull(this.cacheManager.getCache(this.userRepository.USER_BY_EMAIL_CACHE)).evict(user.getEmail());
+        this.authenticationCache.evict(user.getLogin());
     }
 
 }
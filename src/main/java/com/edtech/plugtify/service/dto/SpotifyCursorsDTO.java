@@ -0,0 +1,17 @@
+package com.edtech.plugtify.service.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cursors of a Spotify cursor-based paging object, unix timestamps in milliseconds
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SpotifyCursorsDTO {
+    private String after;
+    private String before;
+}
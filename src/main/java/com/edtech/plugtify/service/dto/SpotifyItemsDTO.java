@@ -13,4 +13,5 @@ import lombok.Setter;
 @NoArgsConstructor
 public class SpotifyItemsDTO {
     private SpotifyPlayHistoryDTO[] items;
+    private SpotifyCursorsDTO cursors;
 }
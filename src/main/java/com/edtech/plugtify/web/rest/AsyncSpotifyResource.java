@@ -0,0 +1,50 @@
+package com.edtech.plugtify.web.rest;
+
+import com.edtech.plugtify.service.SpotifyService;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import com.edtech.plugtify.service.dto.SpotifyUserDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Async version of SpotifyResource (application.web.mode: async).
+ * The user is resolved in the servlet thread, then the Spotify calls are composed as futures:
+ * no thread waits for a pending call, each exchange holds a spotifyExecutor thread while it is on the wire.
+ */
+
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(prefix = "application.web", name = "mode", havingValue = "async")
+public class AsyncSpotifyResource {
+
+    private SpotifyService spotifyService;
+
+    public AsyncSpotifyResource(SpotifyService spotifyService) {
+        this.spotifyService = spotifyService;
+    }
+
+    @GetMapping("/current-user")
+    public CompletableFuture<ResponseEntity<SpotifyUserDTO>> getCurrentUser() {
+        return this.spotifyService.getCurrentUserAsync();
+    }
+
+    @GetMapping("/recently-played")
+    public CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> getRecentlyPlayedTracks() {
+        return this.spotifyService.getRecentlyPlayedAsync();
+    }
+
+    @GetMapping("/suggested-playlist")
+    public CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> getSuggestedPlaylist(@RequestParam(value = "engine", required = false) String engine,
+                                                                                      @RequestParam(value = "fresh", defaultValue = "false") boolean fresh) {
+        return this.spotifyService.getSuggestedPlaylistAsync(engine, fresh);
+    }
+
+    @PostMapping("/add-playlist")
+    public CompletableFuture<ResponseEntity<Void>> addPlaylist(@RequestBody SpotifyTrackDTO[] tracks) {
+        return this.spotifyService.addPlaylistAsync(tracks);
+    }
+
+}
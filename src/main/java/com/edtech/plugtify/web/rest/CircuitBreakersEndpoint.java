@@ -0,0 +1,47 @@
+package com.edtech.plugtify.web.rest;
+
+import com.edtech.plugtify.service.SpotifyCircuitBreaker;
+import com.edtech.plugtify.service.SpotifyEndpoint;
+import com.edtech.plugtify.service.SpotifyEndpointGuards;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint with the state of the Spotify circuit breakers and bulkheads
+ * -> /api/management/circuitbreakers
+ */
+
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakersEndpoint {
+
+    private SpotifyEndpointGuards spotifyEndpointGuards;
+
+    public CircuitBreakersEndpoint(SpotifyEndpointGuards spotifyEndpointGuards) {
+        this.spotifyEndpointGuards = spotifyEndpointGuards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> circuitBreakers() {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        for (SpotifyEndpoint endpoint : SpotifyEndpoint.values()) {
+            SpotifyCircuitBreaker circuitBreaker = this.spotifyEndpointGuards.getCircuitBreaker(endpoint);
+
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", circuitBreaker.getState());
+            details.put("failureRate", circuitBreaker.getFailureRate());
+            details.put("bufferedCalls", circuitBreaker.getBufferedCalls());
+            details.put("maxConcurrentCalls", this.spotifyEndpointGuards.getMaxConcurrentCalls(endpoint));
+            details.put("availableConcurrentCalls", this.spotifyEndpointGuards.getAvailableConcurrentCalls(endpoint));
+
+            endpoints.put(endpoint.getPropertyName(), details);
+        }
+
+        return endpoints;
+    }
+}
@@ -3,11 +3,18 @@ package com.edtech.plugtify.web.rest;
 import com.edtech.plugtify.service.SpotifyService;
 import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
 import com.edtech.plugtify.service.dto.SpotifyUserDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+/**
+ * Spotify resources running in the servlet thread (application.web.mode: sync, default).
+ * AsyncSpotifyResource replaces it in async mode.
+ */
+
 @RestController
 @RequestMapping("/api")
+@ConditionalOnProperty(prefix = "application.web", name = "mode", havingValue = "sync", matchIfMissing = true)
 public class SpotifyResource {
 
     private SpotifyService spotifyService;
@@ -27,8 +34,9 @@ public class SpotifyResource {
     }
 
     @GetMapping("/suggested-playlist")
-    public ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist() {
-        return this.spotifyService.getSuggestedPlaylist();
+    public ResponseEntity<SpotifyTrackDTO[]> getSuggestedPlaylist(@RequestParam(value = "engine", required = false) String engine,
+                                                                   @RequestParam(value = "fresh", defaultValue = "false") boolean fresh) {
+        return this.spotifyService.getSuggestedPlaylist(engine, fresh);
     }
 
     @PostMapping("/add-playlist")
@@ -0,0 +1,64 @@
+package com.edtech.plugtify.web.rest;
+
+import com.edtech.plugtify.security.TokenProvider;
+import com.edtech.plugtify.security.TokenRevocations;
+import com.edtech.plugtify.service.UserService;
+import com.edtech.plugtify.web.rest.errors.InternalServerErrorException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Resource to get and revoke the access tokens of the stateless mode (application.security.mode: stateless).
+ * The client authenticates once with HTTP Basic (or a valid token) and then sends "Authorization: Bearer token".
+ */
+
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(prefix = "application.security", name = "mode", havingValue = "stateless")
+public class TokenResource {
+
+    private UserService userService;
+    private TokenProvider tokenProvider;
+    private TokenRevocations tokenRevocations;
+
+    public TokenResource(
+            UserService userService,
+            TokenProvider tokenProvider,
+            TokenRevocations tokenRevocations
+    ) {
+        this.userService = userService;
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocations = tokenRevocations;
+    }
+
+    /**
+     * Issue an access token for the authenticated user
+     * @return access_token, token_type and expires_in
+     */
+    @PostMapping("/token")
+    public ResponseEntity<Map<String, Object>> createToken() {
+        return this.userService.getCurrentUser()
+                .map(user -> ResponseEntity.ok(Map.<String, Object>of(
+                        "access_token", this.tokenProvider.createToken(user),
+                        "token_type", "Bearer",
+                        "expires_in", this.tokenProvider.getValiditySeconds())))
+                .orElseThrow(() -> new InternalServerErrorException("User can not be found!"));
+    }
+
+    /**
+     * Revoke all the access tokens of the authenticated user
+     * @return Http Response
+     */
+    @PostMapping("/token/revoke")
+    public ResponseEntity<Void> revokeTokens() {
+        this.userService.getCurrentUser().ifPresent(user -> this.tokenRevocations.revoke(user.getId()));
+
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+}
@@ -11,4 +11,6 @@ public final class ErrorConstants {
     public static final URI EMAIL_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/email-already-used");
     public static final URI INVALID_PASSWORD_TYPE = URI.create(PROBLEM_BASE_URL + "/invalid-password");
     public static final URI USER_NOT_FOUND = URI.create(PROBLEM_BASE_URL + "/user-not-found");
+    public static final URI SPOTIFY_RATE_LIMIT_TYPE = URI.create(PROBLEM_BASE_URL + "/spotify-rate-limit");
+    public static final URI SPOTIFY_UNAVAILABLE_TYPE = URI.create(PROBLEM_BASE_URL + "/spotify-unavailable");
 }
@@ -0,0 +1,15 @@
+package com.edtech.plugtify.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Class to generate a TooManyRequests custom exception when the Spotify rate limit can't be waited
+ */
+
+public class SpotifyRateLimitException extends AbstractThrowableProblem {
+
+    public SpotifyRateLimitException() {
+        super(ErrorConstants.SPOTIFY_RATE_LIMIT_TYPE, "Spotify rate limit reached, try again later", Status.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,15 @@
+package com.edtech.plugtify.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Class to generate a ServiceUnavailable custom exception when a Spotify endpoint is unhealthy or saturated
+ */
+
+public class SpotifyUnavailableException extends AbstractThrowableProblem {
+
+    public SpotifyUnavailableException(String message) {
+        super(ErrorConstants.SPOTIFY_UNAVAILABLE_TYPE, message, Status.SERVICE_UNAVAILABLE);
+    }
+}
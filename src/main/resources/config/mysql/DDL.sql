@@ -31,3 +31,52 @@ add column has_token boolean;
 
 alter table tbl_token
 add column last_update_time timestamp not null;
+
+create table tbl_play_history(
+    id bigint(20) auto_increment,
+    user_id bigint(20) not null,
+    track_id varchar(62) not null,
+    played_at datetime(3) not null,
+    constraint pk_play_history primary key(id),
+    constraint fk_play_history_user foreign key(user_id) references tbl_user(id) on delete cascade,
+    constraint uk_play_history unique(user_id, played_at)
+);
+
+create table tbl_track_features(
+    track_id varchar(62) not null,
+    acousticness float not null,
+    danceability float not null,
+    energy float not null,
+    instrumentalness float not null,
+    liveness float not null,
+    speechiness float not null,
+    valence float not null,
+    tempo float not null,
+    popularity integer not null,
+    constraint pk_track_features primary key(track_id)
+);
+
+alter table tbl_play_history
+add column artist_id varchar(62);
+
+create table tbl_taste_profile(
+    user_id bigint(20) not null,
+    last_played_at datetime(3),
+    weight double not null,
+    plays integer not null,
+    statistics varbinary(255) not null,
+    top_artists varchar(2000),
+    version integer not null,
+    constraint pk_taste_profile primary key(user_id),
+    constraint fk_taste_profile_user foreign key(user_id) references tbl_user(id) on delete cascade
+);
+
+create table tbl_id_generator(
+    sequence_name varchar(62) not null,
+    next_val bigint(20) not null,
+    constraint pk_id_generator primary key(sequence_name)
+);
+
+-- the pooled ids of a block are below next_val: it starts one block above the existing ids
+insert into tbl_id_generator(sequence_name, next_val)
+select 'play_history', coalesce(max(id), 0) + 51 from tbl_play_history;
@@ -0,0 +1,105 @@
+package com.edtech.plugtify.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TwoLevelCacheTest {
+
+    private InMemorySharedCacheTier sharedCacheTier;
+    private TwoLevelCache nodeA;
+    private TwoLevelCache nodeB;
+
+    @Before
+    public void setUp() {
+        this.sharedCacheTier = new InMemorySharedCacheTier();
+        this.nodeA = this.twoLevelCache("node-a");
+        this.nodeB = this.twoLevelCache("node-b");
+    }
+
+    @Test
+    public void readsTheSharedTierOnANearCacheMiss() {
+        this.nodeA.put("key", "value");
+
+        assertThat(this.nodeB.getLocalCache().getIfPresent("key")).isNull();
+        assertThat(this.nodeB.get("key", String.class)).isEqualTo("value");
+        assertThat(this.nodeB.getLocalCache().getIfPresent("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void putDropsTheNearCacheEntryOfTheOtherNodes() {
+        this.nodeA.put("key", "old");
+        this.nodeB.get("key");
+
+        this.nodeA.put("key", "new");
+
+        assertThat(this.nodeB.getLocalCache().getIfPresent("key")).isNull();
+        assertThat(this.nodeB.get("key", String.class)).isEqualTo("new");
+    }
+
+    @Test
+    public void evictAndClearReachTheOtherNodes() {
+        this.nodeA.put("first", "value");
+        this.nodeA.put("second", "value");
+        this.nodeB.get("first");
+        this.nodeB.get("second");
+
+        this.nodeA.evict("first");
+
+        assertThat(this.nodeB.get("first")).isNull();
+        assertThat(this.nodeB.get("second", String.class)).isEqualTo("value");
+
+        this.nodeA.clear();
+
+        assertThat(this.nodeB.get("second")).isNull();
+        assertThat(this.nodeB.getLocalCache().estimatedSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void invalidationOfAnotherCacheIsIgnored() {
+        TwoLevelCache otherCache = new TwoLevelCache(
+                "other", "node-a", Caffeine.newBuilder().build(), this.sharedCacheTier, Duration.ofMinutes(1));
+
+        this.nodeB.put("key", "value");
+        otherCache.put("key", "other value");
+
+        assertThat(this.nodeB.getLocalCache().getIfPresent("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void valueLoaderRunsOnlyOnMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(this.nodeA.get("key", () -> "value-" + loads.incrementAndGet())).isEqualTo("value-1");
+        assertThat(this.nodeA.get("key", () -> "value-" + loads.incrementAndGet())).isEqualTo("value-1");
+        assertThat(this.nodeB.get("key", () -> "value-" + loads.incrementAndGet())).isEqualTo("value-1");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void nullValuesAreCached() {
+        this.nodeA.put("key", null);
+
+        assertThat(this.nodeB.get("key")).isNotNull();
+        assertThat(this.nodeB.get("key").get()).isNull();
+    }
+
+    @Test
+    public void expiredSharedEntriesAreMisses() {
+        TwoLevelCache expiring = new TwoLevelCache(
+                "expiring", "node-a", Caffeine.newBuilder().build(), this.sharedCacheTier, Duration.ofMillis(-1));
+
+        expiring.put("key", "value");
+
+        assertThat(this.sharedCacheTier.get("expiring", "key")).isNull();
+    }
+
+    private TwoLevelCache twoLevelCache(String nodeId) {
+        return new TwoLevelCache("cache", nodeId, Caffeine.newBuilder().build(), this.sharedCacheTier, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.edtech.plugtify.config;
+
+import com.edtech.plugtify.cache.InMemorySharedCacheTier;
+import com.edtech.plugtify.cache.SharedCacheTier;
+import com.edtech.plugtify.cache.TwoLevelCache;
+import com.edtech.plugtify.repository.UserRepository;
+import com.edtech.plugtify.service.SpotifyCatalogCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two cache managers of the distributed mode on the same InMemorySharedCacheTier, as two replicas.
+ */
+
+public class CacheCoherenceTest {
+
+    private CacheManager replicaA;
+    private CacheManager replicaB;
+
+    @Before
+    public void setUp() {
+        InMemorySharedCacheTier sharedCacheTier = new InMemorySharedCacheTier();
+
+        this.replicaA = this.cacheManager(sharedCacheTier);
+        this.replicaB = this.cacheManager(sharedCacheTier);
+    }
+
+    @Test
+    public void userCachesAreTwoLevelCaches() {
+        assertThat(this.replicaA.getCache(UserRepository.USER_BY_LOGIN_CACHE)).isInstanceOf(TwoLevelCache.class);
+        assertThat(this.replicaA.getCache(UserRepository.USER_BY_EMAIL_CACHE)).isInstanceOf(TwoLevelCache.class);
+        assertThat(this.replicaA.getCache(SpotifyCatalogCache.TRACKS_CACHE)).isInstanceOf(CaffeineCache.class);
+    }
+
+    @Test
+    public void changeInOneReplicaIsSeenByTheOther() {
+        Cache cacheA = this.replicaA.getCache(UserRepository.USER_BY_LOGIN_CACHE);
+        Cache cacheB = this.replicaB.getCache(UserRepository.USER_BY_LOGIN_CACHE);
+
+        cacheA.put("login", "user v1");
+        assertThat(cacheB.get("login", String.class)).isEqualTo("user v1");
+
+        // replica B has the entry in its near-cache now
+        cacheA.put("login", "user v2");
+        assertThat(cacheB.get("login", String.class)).isEqualTo("user v2");
+
+        cacheB.evict("login");
+        assertThat(cacheA.get("login")).isNull();
+    }
+
+    @Test
+    public void catalogCachesStayLocal() {
+        this.replicaA.getCache(SpotifyCatalogCache.TRACKS_CACHE).put("track", "track A");
+
+        assertThat(this.replicaB.getCache(SpotifyCatalogCache.TRACKS_CACHE).get("track")).isNull();
+    }
+
+    private CacheManager cacheManager(SharedCacheTier sharedCacheTier) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().setMode(ApplicationProperties.Cache.Mode.DISTRIBUTED);
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("sharedCacheTier", sharedCacheTier);
+
+        SimpleCacheManager cacheManager = (SimpleCacheManager)
+                new CacheConfig(applicationProperties, beanFactory.getBeanProvider(SharedCacheTier.class)).cacheManager();
+        cacheManager.afterPropertiesSet();
+
+        return cacheManager;
+    }
+}
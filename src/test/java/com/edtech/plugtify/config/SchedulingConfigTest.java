@@ -0,0 +1,42 @@
+package com.edtech.plugtify.config;
+
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SchedulingConfigTest {
+
+    @Test
+    public void suggestionRefreshBeyondTheQueueIsRejected() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRecommendations().setRefreshConcurrency(1);
+        applicationProperties.getRecommendations().setRefreshQueueCapacity(1);
+
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) new SchedulingConfig(applicationProperties).suggestionRefreshExecutor();
+        executor.initialize();
+
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            executor.execute(() -> this.await(release)); // running
+            executor.execute(() -> this.await(release)); // queued
+
+            assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
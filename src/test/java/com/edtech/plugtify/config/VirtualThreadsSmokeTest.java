@@ -0,0 +1,126 @@
+package com.edtech.plugtify.config;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ExecutorConfigurationSupport;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Smoke test of application.virtual-threads.enabled: true.
+ * It runs on a JDK 21+ runtime (./gradlew virtualThreadsTest -Pjdk21Home=...), on an older runtime only the startup failure is verified.
+ */
+
+public class VirtualThreadsSmokeTest {
+
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @Before
+    public void setUp() {
+        this.applicationProperties.getVirtualThreads().setEnabled(true);
+    }
+
+    @Test
+    public void enabledModeFailsToStartWithoutVirtualThreads() {
+        Assume.assumeFalse(VirtualThreads.isSupported());
+
+        assertThatThrownBy(() -> new SchedulingConfig(this.applicationProperties).taskScheduler())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JDK 21");
+    }
+
+    @Test
+    public void executorsRunOnVirtualThreads() throws Exception {
+        this.assumeVirtualThreads();
+
+        SchedulingConfig schedulingConfig = new SchedulingConfig(this.applicationProperties);
+
+        ThreadPoolTaskScheduler taskScheduler = schedulingConfig.taskScheduler();
+        taskScheduler.initialize();
+
+        AsyncTaskExecutor[] executors = {
+                taskScheduler,
+                schedulingConfig.playlistRefreshExecutor(),
+                schedulingConfig.suggestionRefreshExecutor(),
+                new SpotifyClientConfig(this.applicationProperties).spotifyExecutor()
+        };
+
+        try {
+            for (AsyncTaskExecutor executor : executors) {
+                if(executor instanceof ExecutorConfigurationSupport) {
+                    ((ExecutorConfigurationSupport) executor).initialize();
+                }
+
+                assertThat(executor.submit(VirtualThreadsSmokeTest::isVirtual).get(5, TimeUnit.SECONDS))
+                        .as(executor.getClass().getSimpleName())
+                        .isTrue();
+            }
+        } finally {
+            for (AsyncTaskExecutor executor : executors) {
+                if(executor instanceof ExecutorConfigurationSupport) {
+                    ((ExecutorConfigurationSupport) executor).shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void servletRequestsRunOnVirtualThreads() throws Exception {
+        this.assumeVirtualThreads();
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        factory.addConnectorCustomizers(new VirtualThreadsConfig().virtualThreadsConnectorCustomizer());
+
+        WebServer webServer = factory.getWebServer(servletContext -> servletContext.addServlet("thread", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.getWriter().print(isVirtual());
+            }
+        }).addMapping("/thread"));
+
+        webServer.start();
+
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + webServer.getPort() + "/thread").openConnection();
+
+            try (InputStream body = connection.getInputStream()) {
+                assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("true");
+            }
+        } finally {
+            webServer.stop();
+        }
+    }
+
+    private void assumeVirtualThreads() {
+        // the virtualThreadsTest task requires the JDK 21+ runtime instead of skipping the tests
+        if(Boolean.getBoolean("plugtify.virtual-threads.required")) {
+            assertThat(VirtualThreads.isSupported()).as("virtual threads of the test runtime").isTrue();
+        }
+
+        Assume.assumeTrue(VirtualThreads.isSupported());
+    }
+
+    private static boolean isVirtual() {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
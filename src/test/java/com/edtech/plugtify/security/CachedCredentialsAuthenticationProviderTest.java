@@ -0,0 +1,94 @@
+package com.edtech.plugtify.security;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CachedCredentialsAuthenticationProviderTest {
+
+    private static final String LOGIN = "user";
+
+    private PasswordEncoder passwordEncoder = spy(new BCryptPasswordEncoder(4));
+    private UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private AuthenticationCache authenticationCache;
+    private CachedCredentialsAuthenticationProvider authenticationProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        this.authenticationCache = new AuthenticationCache(new ApplicationProperties());
+        this.authenticationProvider = new CachedCredentialsAuthenticationProvider(
+                this.userDetailsService, this.passwordEncoder, this.authenticationCache);
+
+        this.storePassword("password");
+    }
+
+    @Test
+    public void cacheHitSkipsThePasswordEncoder() {
+        this.authenticate("password");
+        this.authenticate("password");
+
+        verify(this.passwordEncoder, times(1)).matches(anyString(), anyString());
+    }
+
+    @Test
+    public void wrongPasswordIsRejectedOnACacheHit() {
+        this.authenticate("password");
+
+        assertThatThrownBy(() -> this.authenticate("wrong")).isInstanceOf(BadCredentialsException.class);
+        verify(this.passwordEncoder, times(2)).matches(anyString(), anyString());
+
+        // the verified credentials are still cached
+        this.authenticate("password");
+        verify(this.passwordEncoder, times(2)).matches(anyString(), anyString());
+    }
+
+    @Test
+    public void cachedCredentialsDoNotMatchAfterAPasswordChange() {
+        this.authenticate("password");
+
+        this.storePassword("new password");
+
+        assertThatThrownBy(() -> this.authenticate("password")).isInstanceOf(BadCredentialsException.class);
+        assertThat(this.authenticate("new password")).isNotNull();
+    }
+
+    @Test
+    public void evictedCredentialsAreVerifiedAgain() {
+        this.authenticate("password");
+
+        this.authenticationCache.evict(LOGIN);
+        this.authenticate("password");
+
+        verify(this.passwordEncoder, times(2)).matches(anyString(), anyString());
+    }
+
+    @Test
+    public void missingCredentialsAreRejected() {
+        assertThatThrownBy(() -> this.authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, null)))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(this.passwordEncoder, never()).matches(any(), any());
+    }
+
+    private Object authenticate(String password) {
+        return this.authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, password));
+    }
+
+    private void storePassword(String password) {
+        String encodedPassword = new BCryptPasswordEncoder(4).encode(password);
+
+        when(this.userDetailsService.loadUserByUsername(LOGIN))
+                .thenReturn(User.withUsername(LOGIN).password(encodedPassword).authorities("ROLE_USER").build());
+    }
+}
@@ -0,0 +1,68 @@
+package com.edtech.plugtify.security;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TokenAuthenticationFilterTest {
+
+    private TokenProvider tokenProvider = mock(TokenProvider.class);
+    private TokenAuthenticationFilter filter = new TokenAuthenticationFilter(this.tokenProvider);
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void validBearerTokenAuthenticatesTheRequest() throws Exception {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("user", "token", Collections.emptyList());
+        when(this.tokenProvider.getAuthentication("token")).thenReturn(Optional.of(authentication));
+
+        MockFilterChain filterChain = this.doFilter("Bearer token");
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(authentication);
+        assertThat(filterChain.getRequest()).isNotNull();
+    }
+
+    @Test
+    public void invalidTokenGoesOnUnauthenticated() throws Exception {
+        when(this.tokenProvider.getAuthentication("token")).thenReturn(Optional.empty());
+
+        MockFilterChain filterChain = this.doFilter("Bearer token");
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+    }
+
+    @Test
+    public void otherAuthorizationSchemesAreIgnored() throws Exception {
+        MockFilterChain filterChain = this.doFilter("Basic dXNlcjpwYXNzd29yZA==");
+
+        verify(this.tokenProvider, never()).getAuthentication(anyString());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+    }
+
+    private MockFilterChain doFilter(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/current-user");
+        request.addHeader("Authorization", authorization);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        this.filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        return filterChain;
+    }
+}
@@ -0,0 +1,163 @@
+package com.edtech.plugtify.security;
+
+import com.edtech.plugtify.cache.InMemorySharedCacheTier;
+import com.edtech.plugtify.cache.SharedCacheTier;
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.config.CacheConfig;
+import com.edtech.plugtify.domain.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TokenProviderTest {
+
+    private static final String KEY_1 = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+    private static final String KEY_2 = Base64.getEncoder().encodeToString("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+    private InMemorySharedCacheTier sharedCacheTier = new InMemorySharedCacheTier();
+    private User user = new User();
+
+    @Before
+    public void setUp() {
+        this.applicationProperties.getCache().setMode(ApplicationProperties.Cache.Mode.DISTRIBUTED);
+        this.applicationProperties.getSecurity().getToken().setSigningKeyId("k1");
+        this.applicationProperties.getSecurity().getToken().setKeys(Map.of("k1", KEY_1));
+
+        this.user.setId(1L);
+        this.user.setLogin("user");
+    }
+
+    @Test
+    public void issuedTokenIsAuthenticated() {
+        TokenProvider tokenProvider = this.tokenProvider(this.tokenRevocations());
+
+        Optional<Authentication> authentication = tokenProvider.getAuthentication(tokenProvider.createToken(this.user));
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getName()).isEqualTo("user");
+        assertThat(((TokenProvider.TokenDetails) authentication.get().getDetails()).getUserId()).isEqualTo(1L);
+    }
+
+    @Test
+    public void tamperedTokenIsRejected() {
+        TokenProvider tokenProvider = this.tokenProvider(this.tokenRevocations());
+        String[] parts = tokenProvider.createToken(this.user).split("\\.");
+
+        String otherClaims = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"uid\":2,\"iat\":0,\"exp\":9999999999}".getBytes(StandardCharsets.UTF_8));
+        String noneHeader = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"none\",\"kid\":\"k1\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(tokenProvider.getAuthentication(parts[0] + "." + otherClaims + "." + parts[2])).isEmpty();
+        assertThat(tokenProvider.getAuthentication(noneHeader + "." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(tokenProvider.getAuthentication(noneHeader + "." + parts[1] + ".")).isEmpty();
+        assertThat(tokenProvider.getAuthentication("not a token")).isEmpty();
+    }
+
+    @Test
+    public void expiredTokenIsRejected() {
+        TokenProvider tokenProvider = this.tokenProvider(this.tokenRevocations());
+        this.applicationProperties.getSecurity().getToken().setValidity(Duration.ofSeconds(-1));
+
+        assertThat(tokenProvider.getAuthentication(tokenProvider.createToken(this.user))).isEmpty();
+    }
+
+    @Test
+    public void tokenOfTheRotatedKeyIsValidUntilTheKeyIsRemoved() {
+        TokenRevocations tokenRevocations = this.tokenRevocations();
+        String oldToken = this.tokenProvider(tokenRevocations).createToken(this.user);
+
+        // the new key signs the new tokens, the old one still verifies
+        this.applicationProperties.getSecurity().getToken().setKeys(Map.of("k1", KEY_1, "k2", KEY_2));
+        this.applicationProperties.getSecurity().getToken().setSigningKeyId("k2");
+        TokenProvider rotated = this.tokenProvider(tokenRevocations);
+        String newToken = rotated.createToken(this.user);
+
+        assertThat(rotated.getAuthentication(oldToken)).isPresent();
+        assertThat(rotated.getAuthentication(newToken)).isPresent();
+
+        // the old key is removed after the validity
+        this.applicationProperties.getSecurity().getToken().setKeys(Map.of("k2", KEY_2));
+        TokenProvider withoutOldKey = this.tokenProvider(tokenRevocations);
+
+        assertThat(withoutOldKey.getAuthentication(oldToken)).isEmpty();
+        assertThat(withoutOldKey.getAuthentication(newToken)).isPresent();
+    }
+
+    @Test
+    public void revokedTokensAreRejectedByEveryReplica() throws Exception {
+        TokenProvider replicaA = this.tokenProvider(this.tokenRevocations());
+        TokenRevocations revocationsB = this.tokenRevocations();
+        TokenProvider replicaB = this.tokenProvider(revocationsB);
+
+        String revoked = replicaA.createToken(this.user);
+        revocationsB.revoke(this.user.getId());
+        Thread.sleep(2);
+        String issuedAfter = replicaB.createToken(this.user);
+
+        assertThat(replicaA.getAuthentication(revoked)).isEmpty();
+        assertThat(replicaB.getAuthentication(revoked)).isEmpty();
+        assertThat(replicaA.getAuthentication(issuedAfter)).isPresent();
+    }
+
+    @Test
+    public void revocationLivesAsLongAsTheTokenValidity() throws Exception {
+        // a shorter time to live of the cache is ignored
+        this.applicationProperties.getCache().getRevokedTokens().setTimeToLive(Duration.ofMillis(1));
+        TokenRevocations tokenRevocations = this.tokenRevocations();
+        TokenProvider tokenProvider = this.tokenProvider(tokenRevocations);
+
+        String token = tokenProvider.createToken(this.user);
+        tokenRevocations.revoke(this.user.getId());
+        Thread.sleep(20);
+
+        assertThat(tokenProvider.getAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    public void statelessModeDoesNotStartWithLocalCaches() {
+        this.applicationProperties.getCache().setMode(ApplicationProperties.Cache.Mode.LOCAL);
+
+        assertThatThrownBy(() -> this.tokenProvider(this.tokenRevocations())).isInstanceOf(BeanInitializationException.class);
+    }
+
+    @Test
+    public void signingKeyMustBeConfigured() {
+        this.applicationProperties.getSecurity().getToken().setKeys(Map.of("k1", ""));
+
+        assertThatThrownBy(() -> this.tokenProvider(this.tokenRevocations())).isInstanceOf(BeanInitializationException.class);
+    }
+
+    private TokenProvider tokenProvider(TokenRevocations tokenRevocations) {
+        return new TokenProvider(this.applicationProperties, tokenRevocations, new ObjectMapper());
+    }
+
+    /**
+     * @return the revocations of a new replica on the same shared tier
+     */
+    private TokenRevocations tokenRevocations() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("sharedCacheTier", this.sharedCacheTier);
+
+        SimpleCacheManager cacheManager = (SimpleCacheManager)
+                new CacheConfig(this.applicationProperties, beanFactory.getBeanProvider(SharedCacheTier.class)).cacheManager();
+        cacheManager.afterPropertiesSet();
+
+        return new TokenRevocations(cacheManager);
+    }
+}
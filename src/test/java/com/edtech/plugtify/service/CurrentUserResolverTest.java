@@ -0,0 +1,115 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.domain.Token;
+import com.edtech.plugtify.domain.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements run by the lookups of the current user, counted with the Hibernate statistics.
+ */
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(CurrentUserResolver.class)
+public class CurrentUserResolverTest {
+
+    private static final String LOGIN = "resolver-user";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        Token token = new Token();
+        token.setAccess_token("access-token");
+        token.setToken_type("Bearer");
+        token.setExpires_in(3600);
+        token.setLastUpdateTime(Timestamp.from(Instant.now()));
+
+        User user = new User();
+        user.setLogin(LOGIN);
+        user.setEmail(LOGIN + "@plugtify.com");
+        user.setPassword("$2a$10$0123456789012345678901234567890123456789012345678901");
+        user.setCreatedBy("test");
+        user.setToken(token);
+
+        this.entityManager.persist(user);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(LOGIN, null, Collections.emptyList()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void userAndTokenAreLoadedOncePerRequest() {
+        for (int i = 0; i < 3; i++) {
+            User user = this.currentUserResolver.getCurrentUser().orElseThrow();
+            assertThat(user.getToken().getAccess_token()).isEqualTo("access-token");
+        }
+
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictedUserIsLoadedAgain() {
+        this.currentUserResolver.getCurrentUser();
+        this.currentUserResolver.evict(LOGIN);
+        this.currentUserResolver.getCurrentUser();
+
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void eachLookupOutsideOfARequestRunsTheQuery() {
+        RequestContextHolder.resetRequestAttributes();
+
+        this.currentUserResolver.getCurrentUser();
+        this.currentUserResolver.getCurrentUser();
+
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,109 @@
+package com.edtech.plugtify.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The approximate search of HnswIndex against the exact search of TrackFeatureIndex.
+ */
+
+public class HnswIndexTest {
+
+    private static final int TRACKS = 5000;
+    private static final int QUERIES = 50;
+    private static final int K = 20;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Random random = new Random(7);
+    private TrackFeatureIndex trackFeatureIndex = new TrackFeatureIndex();
+    private HnswIndex hnswIndex = new HnswIndex(TrackFeatureIndex.DIMENSIONS, 16, 100);
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < TRACKS; i++) {
+            float[] features = this.randomFeatures();
+            int popularity = i % 100;
+
+            this.trackFeatureIndex.put("track" + i, features, popularity);
+            this.hnswIndex.insert("track" + i, TrackFeatureIndex.vector(features), popularity);
+        }
+    }
+
+    @Test
+    public void recallAgainstTheExactSearch() {
+        assertThat(this.recall(this.hnswIndex, 0, Set.of())).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    public void filteredSearchKeepsTheRecall() {
+        Set<String> excluded = new HashSet<>();
+
+        for (int i = 0; i < TRACKS; i += 3) {
+            excluded.add("track" + i);
+        }
+
+        assertThat(this.recall(this.hnswIndex, 50, excluded)).isGreaterThanOrEqualTo(0.9);
+
+        List<String> nearest = this.hnswIndex.search(TrackFeatureIndex.vector(this.randomFeatures()), K, 64, 50, excluded);
+
+        assertThat(nearest).hasSize(K).doesNotContainAnyElementsOf(excluded);
+        assertThat(nearest).allMatch(trackId -> Integer.parseInt(trackId.substring(5)) % 100 >= 50);
+    }
+
+    @Test
+    public void existingTrackIsNotReplaced() {
+        assertThat(this.hnswIndex.insert("track0", TrackFeatureIndex.vector(this.randomFeatures()), 0)).isFalse();
+        assertThat(this.hnswIndex.size()).isEqualTo(TRACKS);
+    }
+
+    @Test
+    public void snapshotHasTheSameGraph() throws Exception {
+        Path snapshot = this.temporaryFolder.getRoot().toPath().resolve("hnsw.bin");
+
+        assertThat(this.hnswIndex.saveIfDirty(snapshot)).isTrue();
+        assertThat(this.hnswIndex.saveIfDirty(snapshot)).isFalse();
+
+        HnswIndex loaded = HnswIndex.load(snapshot, TrackFeatureIndex.DIMENSIONS, 16, 100).orElseThrow();
+        float[] query = TrackFeatureIndex.vector(this.randomFeatures());
+
+        assertThat(loaded.size()).isEqualTo(TRACKS);
+        assertThat(loaded.search(query, K, 64, 0, Set.of())).isEqualTo(this.hnswIndex.search(query, K, 64, 0, Set.of()));
+        assertThat(HnswIndex.load(snapshot, TrackFeatureIndex.DIMENSIONS, 8, 100)).isEmpty();
+    }
+
+    private double recall(HnswIndex index, int minPopularity, Set<String> excluded) {
+        double recall = 0;
+
+        for (int i = 0; i < QUERIES; i++) {
+            float[] query = this.randomFeatures();
+
+            Set<String> exact = new HashSet<>(this.trackFeatureIndex.nearest(query, minPopularity, K, excluded));
+            List<String> approximate = index.search(TrackFeatureIndex.vector(query), K, 64, minPopularity, excluded);
+
+            recall += approximate.stream().filter(exact::contains).count() / (double) K;
+        }
+
+        return recall / QUERIES;
+    }
+
+    private float[] randomFeatures() {
+        float[] features = new float[TrackFeatureIndex.DIMENSIONS];
+
+        for (int dimension = 0; dimension < TrackFeatureIndex.TEMPO; dimension++) {
+            features[dimension] = this.random.nextFloat();
+        }
+
+        features[TrackFeatureIndex.TEMPO] = 60 + this.random.nextFloat() * 140; // BPM
+
+        return features;
+    }
+}
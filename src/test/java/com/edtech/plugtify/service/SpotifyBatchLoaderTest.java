@@ -0,0 +1,171 @@
+package com.edtech.plugtify.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SpotifyBatchLoaderTest {
+
+    private ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        this.flushScheduler.shutdownNow();
+    }
+
+    @Test
+    public void idsOfTheSameWindowAreSentInOneBatch() throws Exception {
+        SpotifyBatchLoader<String> loader = this.loader(50, Duration.ofMillis(50), this::echo, Runnable::run);
+
+        CompletableFuture<Map<String, String>> first = loader.load(List.of("a", "b"));
+        CompletableFuture<Map<String, String>> second = loader.load(List.of("b", "c"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsOnlyKeys("a", "b");
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsOnlyKeys("b", "c");
+        assertThat(this.calls).containsExactly(List.of("a", "b", "c"));
+    }
+
+    @Test
+    public void idInFlightIsNotRequestedAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        SpotifyBatchLoader<String> loader = this.loader(50, Duration.ofMillis(1), ids -> {
+            started.countDown();
+            await(release);
+            return this.echo(ids);
+        }, executor);
+
+        try {
+            CompletableFuture<Map<String, String>> first = loader.load(List.of("a"));
+
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Map<String, String>> second = loader.load(List.of("a"));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsEntry("a", "a");
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsEntry("a", "a");
+            assertThat(this.calls).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        SpotifyBatchLoader<String> loader = this.loader(2, Duration.ofHours(1), this::echo, Runnable::run);
+
+        Map<String, String> values = loader.load(List.of("a", "b")).get(5, TimeUnit.SECONDS);
+
+        assertThat(values).containsOnlyKeys("a", "b");
+        assertThat(this.calls).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    public void badRequestFailsOnlyTheCallersOfTheInvalidId() throws Exception {
+        SpotifyBatchLoader<String> loader = this.loader(4, Duration.ofHours(1), ids -> {
+            if(ids.contains("invalid")) {
+                this.calls.add(new ArrayList<>(ids));
+                throw HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null);
+            }
+
+            return this.echo(ids);
+        }, Runnable::run);
+
+        CompletableFuture<Map<String, String>> valid = loader.load(List.of("a", "b"));
+        CompletableFuture<Map<String, String>> invalid = loader.load(List.of("c", "invalid"));
+
+        assertThat(valid.get(5, TimeUnit.SECONDS)).containsOnlyKeys("a", "b");
+        assertThatThrownBy(() -> invalid.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HttpClientErrorException.BadRequest.class);
+        assertThat(this.calls).containsExactly(
+                List.of("a", "b", "c", "invalid"),
+                List.of("a", "b"),
+                List.of("c", "invalid"),
+                List.of("c"),
+                List.of("invalid")
+        );
+    }
+
+    @Test
+    public void otherErrorsFailTheWholeBatch() {
+        SpotifyBatchLoader<String> loader = this.loader(2, Duration.ofHours(1), ids -> {
+            this.calls.add(new ArrayList<>(ids));
+            throw HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null);
+        }, Runnable::run);
+
+        assertThatThrownBy(() -> loader.load(List.of("a", "b")).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HttpClientErrorException.Unauthorized.class);
+        assertThat(this.calls).hasSize(1);
+    }
+
+    @Test
+    public void rejectedBatchFailsItsCallersWithoutRunningOnTheCallerThread() {
+        SpotifyBatchLoader<String> loader = this.loader(2, Duration.ofHours(1), this::echo, runnable -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        CompletableFuture<Map<String, String>> values = loader.load(List.of("a", "b"));
+
+        assertThatThrownBy(() -> values.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(this.calls).isEmpty();
+
+        // the ids are not in flight anymore, they can be requested again
+        assertThat(loader.load(List.of("a", "b"))).isCompletedExceptionally();
+    }
+
+    @Test
+    public void batchRunsAsInteractiveIfOneOfItsCallersIs() throws Exception {
+        List<SpotifyRequestPriority> priorities = new CopyOnWriteArrayList<>();
+
+        SpotifyBatchLoader<String> loader = this.loader(2, Duration.ofHours(1), ids -> {
+            priorities.add(SpotifyRequestPriority.current());
+            return this.echo(ids);
+        }, runnable -> new Thread(runnable).start());
+
+        SpotifyRequestPriority.runAs(SpotifyRequestPriority.BACKGROUND, () -> loader.load(List.of("a")));
+        loader.load(List.of("a", "b")).get(5, TimeUnit.SECONDS);
+
+        SpotifyRequestPriority.runAs(SpotifyRequestPriority.BACKGROUND, () -> loader.load(List.of("c", "d")));
+
+        while (priorities.size() < 2) {
+            Thread.sleep(1);
+        }
+
+        assertThat(priorities).containsExactly(SpotifyRequestPriority.INTERACTIVE, SpotifyRequestPriority.BACKGROUND);
+    }
+
+    private SpotifyBatchLoader<String> loader(int maxBatchSize, Duration window,
+                                              Function<List<String>, Map<String, String>> batchCall, Executor executor) {
+        return new SpotifyBatchLoader<>(maxBatchSize, window, batchCall, executor, this.flushScheduler);
+    }
+
+    private Map<String, String> echo(List<String> ids) {
+        this.calls.add(new ArrayList<>(ids));
+
+        Map<String, String> values = new HashMap<>();
+        ids.forEach(id -> values.put(id, id));
+        return values;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SpotifyCircuitBreakerTest {
+
+    private ApplicationProperties applicationProperties;
+    private ApplicationProperties.Spotify.Resilience properties;
+
+    @Before
+    public void setUp() {
+        this.applicationProperties = new ApplicationProperties();
+        this.properties = this.applicationProperties.getSpotify().getResilience();
+        this.properties.setSlidingWindowSize(4);
+        this.properties.setMinimumCalls(4);
+        this.properties.setFailureRateThreshold(50);
+        this.properties.setOpenDuration(Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void staysClosedUntilTheMinimumCalls() {
+        SpotifyCircuitBreaker circuitBreaker = new SpotifyCircuitBreaker(this.properties);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    public void opensWhenTheFailureRateReachesTheThreshold() {
+        SpotifyCircuitBreaker circuitBreaker = new SpotifyCircuitBreaker(this.properties);
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    public void oldCallsLeaveTheSlidingWindow() {
+        SpotifyCircuitBreaker circuitBreaker = new SpotifyCircuitBreaker(this.properties);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        assertThat(circuitBreaker.getBufferedCalls()).isEqualTo(4);
+        assertThat(circuitBreaker.getFailureRate()).isEqualTo(0);
+    }
+
+    @Test
+    public void halfOpenPermitsOneTrialCall() {
+        SpotifyCircuitBreaker circuitBreaker = this.openCircuitBreaker();
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    public void successfulTrialCallClosesTheBreaker() {
+        SpotifyCircuitBreaker circuitBreaker = this.openCircuitBreaker();
+
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getBufferedCalls()).isEqualTo(0);
+    }
+
+    @Test
+    public void failedTrialCallOpensTheBreakerAgain() {
+        SpotifyCircuitBreaker circuitBreaker = this.openCircuitBreaker();
+
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void ignoredTrialCallPermitsAnotherTrial() {
+        SpotifyCircuitBreaker circuitBreaker = this.openCircuitBreaker();
+
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onIgnored();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    public void fullBulkheadDoesNotTakeTheTrialCall() {
+        this.properties.setMaxConcurrentCalls(1);
+        this.properties.setMaxWait(Duration.ofMillis(10));
+        this.properties.setMinimumCalls(1);
+        this.properties.setOpenDuration(Duration.ZERO);
+
+        SpotifyEndpointGuards guards = new SpotifyEndpointGuards(this.applicationProperties);
+        SpotifyCircuitBreaker circuitBreaker = guards.getCircuitBreaker(SpotifyEndpoint.TRACKS);
+
+        guards.acquire(SpotifyEndpoint.TRACKS);
+        circuitBreaker.onFailure();
+
+        assertThatThrownBy(() -> guards.acquire(SpotifyEndpoint.TRACKS))
+                .isInstanceOf(SpotifyUnavailableException.class)
+                .hasMessageContaining("busy");
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.OPEN);
+
+        guards.release(SpotifyEndpoint.TRACKS, null);
+
+        // the trial call is still available once the bulkhead has a place
+        guards.acquire(SpotifyEndpoint.TRACKS);
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.HALF_OPEN);
+
+        guards.release(SpotifyEndpoint.TRACKS, false);
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.CLOSED);
+        assertThat(guards.getAvailableConcurrentCalls(SpotifyEndpoint.TRACKS)).isEqualTo(1);
+    }
+
+    private SpotifyCircuitBreaker openCircuitBreaker() {
+        this.properties.setMinimumCalls(1);
+        this.properties.setOpenDuration(Duration.ZERO);
+
+        SpotifyCircuitBreaker circuitBreaker = new SpotifyCircuitBreaker(this.properties);
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(SpotifyCircuitBreaker.State.OPEN);
+
+        return circuitBreaker;
+    }
+}
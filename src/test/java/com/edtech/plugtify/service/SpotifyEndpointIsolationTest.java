@@ -0,0 +1,143 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * The Spotify RestTemplate interceptors against a stub server:
+ * a failing or hanging endpoint doesn't take the calls of the other endpoints.
+ */
+
+public class SpotifyEndpointIsolationTest {
+
+    private static final String RECOMMENDATIONS = "https://api.spotify.com/v1/recommendations";
+    private static final String TRACKS = "https://api.spotify.com/v1/tracks";
+
+    private SpotifyEndpointGuards guards;
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Before
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+
+        ApplicationProperties.Spotify.Resilience resilience = applicationProperties.getSpotify().getResilience();
+        resilience.setMaxConcurrentCalls(2);
+        resilience.setMaxWait(Duration.ofMillis(50));
+        resilience.setSlidingWindowSize(10);
+        resilience.setMinimumCalls(5);
+        resilience.setOpenDuration(Duration.ofMinutes(1));
+
+        ApplicationProperties.Spotify.RateLimit rateLimit = applicationProperties.getSpotify().getRateLimit();
+        rateLimit.setPermitsPerSecond(1000);
+        rateLimit.setBurst(1000);
+        rateLimit.setMaxRetries(1);
+        rateLimit.setInitialBackoff(Duration.ofMillis(1));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        this.guards = new SpotifyEndpointGuards(applicationProperties);
+
+        this.restTemplate = new RestTemplate();
+        this.server = MockRestServiceServer.bindTo(this.restTemplate).ignoreExpectOrder(true).build();
+        this.restTemplate.setInterceptors(List.of(new SpotifyRateLimitInterceptor(
+                applicationProperties,
+                new SpotifyRateLimiter(applicationProperties, meterRegistry),
+                new SpotifyResilienceInterceptor(this.guards),
+                meterRegistry)));
+
+        this.server.expect(ExpectedCount.manyTimes(), requestTo(startsWith(TRACKS)))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void failingEndpointOpensOnlyItsCircuitBreaker() {
+        this.server.expect(ExpectedCount.manyTimes(), requestTo(startsWith(RECOMMENDATIONS)))
+                .andRespond(withServerError());
+
+        // each call is sent twice (one retry), every attempt is a failure of the endpoint
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> this.restTemplate.getForObject(RECOMMENDATIONS, String.class))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // the fifth failed attempt opens the breaker, the retry is rejected
+        assertThatThrownBy(() -> this.restTemplate.getForObject(RECOMMENDATIONS, String.class))
+                .isInstanceOf(SpotifyUnavailableException.class);
+        assertThat(this.guards.getCircuitBreaker(SpotifyEndpoint.RECOMMENDATIONS).getState())
+                .isEqualTo(SpotifyCircuitBreaker.State.OPEN);
+        assertThat(this.guards.getAvailableConcurrentCalls(SpotifyEndpoint.RECOMMENDATIONS)).isEqualTo(2);
+
+        assertThat(this.restTemplate.getForObject(TRACKS + "?ids=1", String.class)).isEqualTo("{}");
+        assertThat(this.guards.getCircuitBreaker(SpotifyEndpoint.TRACKS).getState())
+                .isEqualTo(SpotifyCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void hangingEndpointFillsOnlyItsBulkhead() throws Exception {
+        CountDownLatch hanging = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        this.server.expect(ExpectedCount.manyTimes(), requestTo(startsWith(RECOMMENDATIONS)))
+                .andRespond(request -> {
+                    hanging.countDown();
+
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return withSuccess("{}", MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        Future<?> first = this.executor.submit(() -> this.restTemplate.getForObject(RECOMMENDATIONS, String.class));
+        Future<?> second = this.executor.submit(() -> this.restTemplate.getForObject(RECOMMENDATIONS, String.class));
+
+        assertThat(hanging.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(this.guards.getAvailableConcurrentCalls(SpotifyEndpoint.RECOMMENDATIONS)).isEqualTo(0);
+
+        // the recommendations bulkhead is full, the tracks calls are not waiting for it
+        assertThatThrownBy(() -> this.restTemplate.getForObject(RECOMMENDATIONS, String.class))
+                .isInstanceOf(SpotifyUnavailableException.class)
+                .hasMessageContaining("busy");
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(this.restTemplate.getForObject(TRACKS + "?ids=" + i, String.class)).isEqualTo("{}");
+        }
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        assertThat(this.guards.getAvailableConcurrentCalls(SpotifyEndpoint.RECOMMENDATIONS)).isEqualTo(2);
+        assertThat(this.guards.getCircuitBreaker(SpotifyEndpoint.RECOMMENDATIONS).getState())
+                .isEqualTo(SpotifyCircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,89 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.web.rest.errors.SpotifyRateLimitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class SpotifyRateLimiterTest {
+
+    private ApplicationProperties applicationProperties;
+    private ApplicationProperties.Spotify.RateLimit properties;
+
+    @Before
+    public void setUp() {
+        this.applicationProperties = new ApplicationProperties();
+        this.properties = this.applicationProperties.getSpotify().getRateLimit();
+        this.properties.setPermitsPerSecond(0.01);
+        this.properties.setBurst(4);
+        this.properties.setBackgroundReserve(0.5);
+        this.properties.setMaxWait(Duration.ZERO);
+        this.properties.setBackgroundMaxWait(Duration.ZERO);
+    }
+
+    @Test
+    public void interactiveRequestsCanUseTheWholeBurst() {
+        SpotifyRateLimiter rateLimiter = this.rateLimiter();
+
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE);
+        }
+
+        assertThatThrownBy(() -> rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE))
+                .isInstanceOf(SpotifyRateLimitException.class);
+    }
+
+    @Test
+    public void backgroundRequestsLeaveTheReserve() {
+        SpotifyRateLimiter rateLimiter = this.rateLimiter();
+
+        rateLimiter.acquire(SpotifyRequestPriority.BACKGROUND);
+        rateLimiter.acquire(SpotifyRequestPriority.BACKGROUND);
+
+        assertThatThrownBy(() -> rateLimiter.acquire(SpotifyRequestPriority.BACKGROUND))
+                .isInstanceOf(SpotifyRateLimitException.class);
+
+        // the reserve is still available for the users requests
+        rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE);
+        rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE);
+    }
+
+    @Test
+    public void permitsAreRefilledOverTime() {
+        this.properties.setPermitsPerSecond(100);
+        this.properties.setBurst(1);
+        this.properties.setMaxWait(Duration.ofSeconds(1));
+
+        SpotifyRateLimiter rateLimiter = this.rateLimiter();
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE);
+        rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE);
+
+        // the second permit needs 10ms
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(9));
+    }
+
+    @Test
+    public void retryAfterBlocksEveryRequest() {
+        this.properties.setMaxWait(Duration.ofMillis(50));
+
+        SpotifyRateLimiter rateLimiter = this.rateLimiter();
+        rateLimiter.blockFor(Duration.ofMinutes(1));
+
+        assertThat(rateLimiter.getAvailablePermits()).isEqualTo(4, offset(0.01));
+        assertThatThrownBy(() -> rateLimiter.acquire(SpotifyRequestPriority.INTERACTIVE))
+                .isInstanceOf(SpotifyRateLimitException.class);
+    }
+
+    private SpotifyRateLimiter rateLimiter() {
+        return new SpotifyRateLimiter(this.applicationProperties, new SimpleMeterRegistry());
+    }
+}
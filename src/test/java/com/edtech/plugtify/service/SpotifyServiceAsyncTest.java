@@ -0,0 +1,161 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.Token;
+import com.edtech.plugtify.domain.User;
+import com.edtech.plugtify.repository.TokenRepository;
+import com.edtech.plugtify.repository.UserRepository;
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import com.edtech.plugtify.service.dto.SpotifyUserDTO;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The async mode composes the Spotify calls: the returned future is pending while the calls are,
+ * no thread of the service waits for them.
+ */
+
+public class SpotifyServiceAsyncTest {
+
+    private CurrentUserResolver currentUserResolver = mock(CurrentUserResolver.class);
+    private RestTemplate spotifyRestTemplate = mock(RestTemplate.class);
+    private SpotifyCatalogLoader spotifyCatalogLoader = mock(SpotifyCatalogLoader.class);
+    private SpotifyTokenManager spotifyTokenManager = mock(SpotifyTokenManager.class);
+    private SpotifyAsyncClient spotifyAsyncClient = mock(SpotifyAsyncClient.class);
+    private PlayHistoryService playHistoryService = mock(PlayHistoryService.class);
+    private TrackFeatureStore trackFeatureStore = mock(TrackFeatureStore.class);
+    private SuggestionCache suggestionCache = mock(SuggestionCache.class);
+    private AsyncTaskExecutor suggestionRefreshExecutor = mock(AsyncTaskExecutor.class);
+
+    private SpotifyService spotifyService = new SpotifyService(new ApplicationProperties(), this.currentUserResolver,
+            mock(UserRepository.class), mock(TokenRepository.class), this.spotifyRestTemplate, new TrackFeatureJoiner(),
+            this.spotifyCatalogLoader, this.spotifyTokenManager, this.spotifyAsyncClient, this.playHistoryService,
+            this.trackFeatureStore, mock(LocalRecommendationEngine.class), mock(TasteProfileService.class),
+            this.suggestionCache, this.suggestionRefreshExecutor);
+
+    private User user = new User();
+
+    @Before
+    public void setUp() {
+        this.user.setId(1L);
+        this.user.setToken(new Token());
+
+        when(this.currentUserResolver.getCurrentUser()).thenReturn(Optional.of(this.user));
+    }
+
+    @Test
+    public void recentlyPlayedIsComposedWithoutBlocking() throws Exception {
+        CompletableFuture<Void> ingestion = new CompletableFuture<>();
+        CompletableFuture<Map<String, SpotifyTrackDTO>> tracks = new CompletableFuture<>();
+        CompletableFuture<Map<String, SpotifyAudioFeaturesDTO>> features = new CompletableFuture<>();
+
+        when(this.playHistoryService.ingestAsync(this.user)).thenReturn(ingestion);
+        when(this.playHistoryService.getStoredRecentTrackIds(this.user, 50)).thenReturn(List.of("a", "b"));
+        when(this.spotifyCatalogLoader.getTracks(List.of("a", "b"))).thenReturn(tracks);
+        when(this.spotifyCatalogLoader.getAudioFeatures(List.of("a", "b"))).thenReturn(features);
+
+        CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> response = this.spotifyService.getRecentlyPlayedAsync();
+
+        assertThat(response).isNotDone();
+        verifyZeroInteractions(this.spotifyCatalogLoader);
+
+        ingestion.complete(null);
+
+        assertThat(response).isNotDone();
+        verify(this.spotifyCatalogLoader).getTracks(List.of("a", "b"));
+
+        tracks.complete(Map.of("a", this.track("a"), "b", this.track("b")));
+        features.complete(Map.of("a", this.audioFeatures("a")));
+
+        SpotifyTrackDTO[] body = response.get(5, TimeUnit.SECONDS).getBody();
+
+        assertThat(body).extracting(SpotifyTrackDTO::getId).containsExactly("a", "b");
+        assertThat(body[0].getAudio_feature().getId()).isEqualTo("a");
+        verify(this.trackFeatureStore).store(body);
+        verifyZeroInteractions(this.spotifyRestTemplate);
+    }
+
+    @Test
+    public void currentUserWaitsForTheTokenRefreshWithoutBlocking() throws Exception {
+        CompletableFuture<String> authorization = new CompletableFuture<>();
+        SpotifyUserDTO spotifyUser = new SpotifyUserDTO();
+
+        when(this.spotifyTokenManager.getAuthorizationAsync(this.user.getToken())).thenReturn(authorization);
+        when(this.spotifyAsyncClient.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(SpotifyUserDTO.class)))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(spotifyUser)));
+
+        CompletableFuture<ResponseEntity<SpotifyUserDTO>> response = this.spotifyService.getCurrentUserAsync();
+
+        assertThat(response).isNotDone();
+        verifyZeroInteractions(this.spotifyAsyncClient);
+
+        authorization.complete("Bearer token");
+
+        assertThat(response.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.get().getBody()).isSameAs(spotifyUser);
+    }
+
+    @Test
+    public void failedSpotifyCallFailsTheResponse() {
+        when(this.spotifyTokenManager.getAuthorizationAsync(this.user.getToken()))
+                .thenReturn(CompletableFuture.completedFuture("Bearer token"));
+        when(this.spotifyAsyncClient.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(SpotifyUserDTO.class)))
+                .thenReturn(CompletableFuture.failedFuture(new SpotifyUnavailableException("rejected")));
+
+        assertThatThrownBy(() -> this.spotifyService.getCurrentUserAsync().get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(SpotifyUnavailableException.class);
+    }
+
+    @Test
+    public void staleSuggestionsAreServedWhenTheRefreshIsRejected() throws Exception {
+        SuggestionCache.Suggestions suggestions = mock(SuggestionCache.Suggestions.class);
+        when(suggestions.getGeneratedAt()).thenReturn(Instant.now().minusSeconds(7200));
+        when(suggestions.getTrackIds()).thenReturn(List.of("a"));
+        when(this.suggestionCache.get(1L, ApplicationProperties.Recommendations.Engine.REMOTE)).thenReturn(Optional.of(suggestions));
+        when(this.spotifyCatalogLoader.getTracks(List.of("a"))).thenReturn(CompletableFuture.completedFuture(Map.of("a", this.track("a"))));
+        doThrow(new TaskRejectedException("full")).when(this.suggestionRefreshExecutor).execute(any(Runnable.class));
+
+        SpotifyTrackDTO[] body = this.spotifyService.getSuggestedPlaylistAsync(null, false).get(5, TimeUnit.SECONDS).getBody();
+
+        assertThat(body).extracting(SpotifyTrackDTO::getId).containsExactly("a");
+
+        // the rejected refresh is not in progress, the next request tries again
+        this.spotifyService.getSuggestedPlaylistAsync(null, false).get(5, TimeUnit.SECONDS);
+        verify(this.suggestionRefreshExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    private SpotifyTrackDTO track(String id) {
+        SpotifyTrackDTO track = new SpotifyTrackDTO();
+        track.setId(id);
+        return track;
+    }
+
+    private SpotifyAudioFeaturesDTO audioFeatures(String id) {
+        SpotifyAudioFeaturesDTO audioFeatures = new SpotifyAudioFeaturesDTO();
+        audioFeatures.setId(id);
+        return audioFeatures;
+    }
+}
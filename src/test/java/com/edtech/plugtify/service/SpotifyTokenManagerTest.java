@@ -0,0 +1,243 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.Token;
+import com.edtech.plugtify.repository.TokenRepository;
+import com.edtech.plugtify.service.dto.TokenDTO;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SpotifyTokenManagerTest {
+
+    private static final Long TOKEN_ID = 1L;
+
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+    private TokenRepository tokenRepository = mock(TokenRepository.class);
+    private RestTemplate spotifyRestTemplate = mock(RestTemplate.class);
+
+    // tasks sent to the spotifyExecutor, run by the tests
+    private List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    public void validTokenIsServedWithoutRefresh() {
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+
+        assertThat(tokenManager.getAuthorization(this.token(Instant.now()))).isEqualTo("Bearer expired");
+        assertThat(this.tasks).isEmpty();
+    }
+
+    @Test
+    public void concurrentRefreshesOfTheSameTokenAreMerged() {
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+        Token token = this.token();
+
+        CompletableFuture<SpotifyTokenManager.AccessToken> first = tokenManager.refresh(token);
+        CompletableFuture<SpotifyTokenManager.AccessToken> second = tokenManager.refresh(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(this.tasks).hasSize(1);
+
+        this.respondWith("refreshed");
+        when(this.tokenRepository.findById(TOKEN_ID)).thenReturn(Optional.of(token));
+        this.tasks.remove(0).run();
+
+        assertThat(first.join().getAuthorization()).isEqualTo("Bearer refreshed");
+        verify(this.spotifyRestTemplate, times(1)).postForEntity(anyString(), any(), eq(TokenDTO.class));
+
+        // the refresh is not in flight anymore
+        tokenManager.refresh(token);
+        assertThat(this.tasks).hasSize(1);
+    }
+
+    @Test
+    public void tokenAboutToExpireIsRenewedWithoutBlockingTheRequest() {
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+        // expires in 100s, inside the refresh skew (5m)
+        Token token = this.token(Instant.now().minusSeconds(3500));
+
+        assertThat(tokenManager.getAuthorization(token)).isEqualTo("Bearer expired");
+        assertThat(this.tasks).hasSize(1);
+
+        this.respondWith("refreshed");
+        when(this.tokenRepository.findById(TOKEN_ID)).thenReturn(Optional.of(this.token(Instant.now().minusSeconds(3500))));
+        this.tasks.remove(0).run();
+
+        // the hot view has the renewed token, the entity of the caller is older
+        assertThat(tokenManager.getAuthorization(token)).isEqualTo("Bearer refreshed");
+        assertThat(this.tasks).isEmpty();
+    }
+
+    @Test
+    public void renewalRejectedByTheFullPoolIsSkipped() {
+        SpotifyTokenManager tokenManager = this.tokenManager(runnable -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertThatThrownBy(() -> tokenManager.getAuthorization(this.token())).isInstanceOf(SpotifyUnavailableException.class);
+        assertThat(tokenManager.getAuthorization(this.token(Instant.now().minusSeconds(3500)))).isEqualTo("Bearer expired");
+        verifyZeroInteractions(this.spotifyRestTemplate);
+    }
+
+    @Test
+    public void refreshThatNeverCompletesDoesNotBlockTheNextCalls() {
+        this.applicationProperties.getSpotify().getToken().setRefreshTimeout(Duration.ofMillis(50));
+        // the executor drops the tasks, e.g. queued at its shutdown
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+
+        assertThatThrownBy(() -> tokenManager.getAuthorization(this.token())).isInstanceOf(SpotifyUnavailableException.class);
+        assertThatThrownBy(() -> tokenManager.getAuthorization(this.token())).isInstanceOf(SpotifyUnavailableException.class);
+
+        // each call sent its own refresh instead of waiting for the dead one
+        assertThat(this.tasks).hasSize(2);
+    }
+
+    @Test
+    public void asyncAuthorizationOfAnExpiredTokenCompletesWithTheRefresh() {
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+        Token token = this.token();
+
+        CompletableFuture<String> authorization = tokenManager.getAuthorizationAsync(token);
+
+        assertThat(authorization).isNotDone();
+
+        this.respondWith("refreshed");
+        when(this.tokenRepository.findById(TOKEN_ID)).thenReturn(Optional.of(token));
+        this.tasks.remove(0).run();
+
+        assertThat(authorization.join()).isEqualTo("Bearer refreshed");
+    }
+
+    @Test
+    public void asyncAuthorizationFailsWhenTheRefreshNeverCompletes() {
+        this.applicationProperties.getSpotify().getToken().setRefreshTimeout(Duration.ofMillis(50));
+        SpotifyTokenManager tokenManager = this.tokenManager(this.tasks::add);
+
+        assertThatThrownBy(() -> tokenManager.getAuthorizationAsync(this.token()).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(SpotifyUnavailableException.class);
+
+        // the dead refresh is not shared with the next callers
+        tokenManager.getAuthorizationAsync(this.token());
+        assertThat(this.tasks).hasSize(2);
+    }
+
+    @Test
+    public void failedFlushQueuesTheTokensAgain() {
+        SpotifyTokenManager tokenManager = this.tokenManager(Runnable::run);
+        Token token = this.token();
+
+        this.respondWith("refreshed");
+        tokenManager.runWithDeferredWrites(() -> tokenManager.refresh(token).join());
+
+        when(this.tokenRepository.findAllById(any()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of(token));
+
+        assertThat(tokenManager.flushDeferredWrites()).isZero();
+        assertThat(token.getAccess_token()).isEqualTo("expired");
+
+        assertThat(tokenManager.flushDeferredWrites()).isEqualTo(1);
+        assertThat(token.getAccess_token()).isEqualTo("refreshed");
+        assertThat(tokenManager.flushDeferredWrites()).isZero();
+    }
+
+    @Test
+    public void requeuedTokenDoesNotReplaceANewerRefresh() {
+        SpotifyTokenManager tokenManager = this.tokenManager(Runnable::run);
+        Token token = this.token();
+
+        this.respondWith("first");
+        tokenManager.runWithDeferredWrites(() -> tokenManager.refresh(token).join());
+
+        when(this.tokenRepository.findAllById(any())).thenAnswer(invocation -> {
+            // a refresh completes during the failed write
+            this.respondWith("second");
+            tokenManager.runWithDeferredWrites(() -> tokenManager.refresh(token).join());
+
+            throw new IllegalStateException("database down");
+        }).thenReturn(List.of(token));
+
+        assertThat(tokenManager.flushDeferredWrites()).isZero();
+        assertThat(tokenManager.flushDeferredWrites()).isEqualTo(1);
+        assertThat(token.getAccess_token()).isEqualTo("second");
+    }
+
+    @Test
+    public void lastFlushWaitsForTheRefreshesInFlight() {
+        CountDownLatch started = new CountDownLatch(1);
+        SpotifyTokenManager tokenManager = this.tokenManager(runnable -> new Thread(runnable).start());
+        Token token = this.token();
+
+        when(this.spotifyRestTemplate.postForEntity(anyString(), any(), eq(TokenDTO.class))).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(200);
+            return ResponseEntity.ok(this.tokenDTO("refreshed"));
+        });
+        when(this.tokenRepository.findAllById(any())).thenReturn(List.of(token));
+
+        tokenManager.runWithDeferredWrites(() -> tokenManager.refresh(token));
+        this.await(started);
+
+        assertThat(tokenManager.flushDeferredWrites()).isZero();
+        assertThat(tokenManager.flushDeferredWritesAndWait()).isEqualTo(1);
+        assertThat(token.getAccess_token()).isEqualTo("refreshed");
+    }
+
+    private SpotifyTokenManager tokenManager(Executor executor) {
+        return new SpotifyTokenManager(this.applicationProperties, this.tokenRepository, this.spotifyRestTemplate,
+                executor, mock(PlatformTransactionManager.class));
+    }
+
+    private Token token() {
+        return this.token(Instant.now().minusSeconds(7200));
+    }
+
+    private Token token(Instant lastUpdateTime) {
+        Token token = new Token();
+        token.setId(TOKEN_ID);
+        token.setAccess_token("expired");
+        token.setToken_type("Bearer");
+        token.setExpires_in(3600);
+        token.setRefresh_token("refresh-token");
+        token.setLastUpdateTime(Timestamp.from(lastUpdateTime));
+        return token;
+    }
+
+    private void respondWith(String accessToken) {
+        when(this.spotifyRestTemplate.postForEntity(anyString(), any(), eq(TokenDTO.class)))
+                .thenReturn(ResponseEntity.ok(this.tokenDTO(accessToken)));
+    }
+
+    private TokenDTO tokenDTO(String accessToken) {
+        TokenDTO tokenDTO = new TokenDTO();
+        tokenDTO.setAccess_token(accessToken);
+        tokenDTO.setToken_type("Bearer");
+        tokenDTO.setExpires_in(3600);
+        return tokenDTO;
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.domain.TasteProfile;
+import com.edtech.plugtify.repository.TasteProfileRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two copies of the same taste profile, as two concurrent updates.
+ */
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each save commits, as the updates do
+public class TasteProfileLockingTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private TasteProfileRepository tasteProfileRepository;
+
+    @After
+    public void tearDown() {
+        this.tasteProfileRepository.deleteAll();
+    }
+
+    @Test
+    public void olderCopyOfTheProfileIsNotStored() {
+        TasteProfile tasteProfile = new TasteProfile();
+        tasteProfile.setUserId(USER_ID);
+        tasteProfile.setStatistics(new byte[0]);
+        this.tasteProfileRepository.save(tasteProfile);
+
+        TasteProfile first = this.tasteProfileRepository.findById(USER_ID).orElseThrow();
+        TasteProfile second = this.tasteProfileRepository.findById(USER_ID).orElseThrow();
+
+        first.setPlays(1);
+        this.tasteProfileRepository.save(first);
+
+        second.setPlays(2);
+        assertThatThrownBy(() -> this.tasteProfileRepository.save(second)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(this.tasteProfileRepository.findById(USER_ID).orElseThrow().getPlays()).isEqualTo(1);
+    }
+
+    @Test
+    public void secondNewProfileOfTheSameUserIsNotStored() {
+        TasteProfile first = new TasteProfile();
+        first.setUserId(USER_ID);
+        first.setStatistics(new byte[0]);
+        this.tasteProfileRepository.save(first);
+
+        TasteProfile second = new TasteProfile();
+        second.setUserId(USER_ID);
+        second.setStatistics(new byte[0]);
+
+        assertThatThrownBy(() -> this.tasteProfileRepository.save(second)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
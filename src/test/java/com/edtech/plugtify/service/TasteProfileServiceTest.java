@@ -0,0 +1,209 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.PlayHistory;
+import com.edtech.plugtify.domain.TasteProfile;
+import com.edtech.plugtify.repository.PlayHistoryRepository;
+import com.edtech.plugtify.repository.TasteProfileRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TasteProfileServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Duration HALF_LIFE = Duration.ofDays(30);
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+    private TasteProfileRepository tasteProfileRepository = mock(TasteProfileRepository.class);
+    private TrackFeatureStore trackFeatureStore = mock(TrackFeatureStore.class);
+    private TasteProfileService tasteProfileService;
+
+    // features of the stored tracks, energy and popularity are enough for the tests
+    private Map<String, float[]> features = new HashMap<>();
+    private TasteProfile stored;
+
+    @Before
+    public void setUp() {
+        this.applicationProperties.getRecommendations().setTasteHalfLife(HALF_LIFE);
+        this.applicationProperties.getRecommendations().setTopArtists(2);
+
+        when(this.tasteProfileRepository.findById(USER_ID)).thenAnswer(invocation -> Optional.ofNullable(this.stored));
+        when(this.tasteProfileRepository.save(any(TasteProfile.class))).thenAnswer(invocation -> {
+            this.stored = invocation.getArgument(0);
+            return this.stored;
+        });
+        when(this.trackFeatureStore.getFeatures(anyString(), any(float[].class))).thenAnswer(invocation -> {
+            float[] trackFeatures = this.features.get(invocation.<String>getArgument(0));
+
+            if(trackFeatures == null) {
+                return false;
+            }
+
+            System.arraycopy(trackFeatures, 0, invocation.getArgument(1), 0, trackFeatures.length);
+            return true;
+        });
+
+        this.tasteProfileService = new TasteProfileService(
+                this.applicationProperties, this.tasteProfileRepository, mock(PlayHistoryRepository.class), this.trackFeatureStore);
+
+        this.track("low", 0.2f, 20);
+        this.track("high", 0.6f, 60);
+    }
+
+    @Test
+    public void playsAtTheSameTimeWeighTheSame() {
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, List.of(
+                this.play("low", null, Duration.ZERO),
+                this.play("high", null, Duration.ZERO)));
+
+        assertThat(taste.getMean(TrackFeatureIndex.ENERGY)).isCloseTo(0.4f, offset(1e-6f));
+        assertThat(taste.getStandardDeviation(TrackFeatureIndex.ENERGY)).isCloseTo(0.2f, offset(1e-6f));
+        assertThat(taste.getPopularity()).isEqualTo(40);
+        assertThat(taste.getPlays()).isEqualTo(2);
+    }
+
+    @Test
+    public void olderPlaysWeighHalfEachHalfLife() {
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, List.of(
+                this.play("low", null, Duration.ZERO),
+                this.play("high", null, HALF_LIFE)));
+
+        // weights 0.5 and 1
+        assertThat(taste.getMean(TrackFeatureIndex.ENERGY)).isCloseTo((0.5f * 0.2f + 0.6f) / 1.5f, offset(1e-6f));
+        assertThat(this.stored.getWeight()).isCloseTo(1.5, offset(1e-9));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchOneUpdate() {
+        List<PlayHistory> plays = List.of(
+                this.play("low", "a", Duration.ZERO),
+                this.play("high", "b", Duration.ofDays(3)),
+                this.play("low", "a", Duration.ofDays(10)),
+                this.play("high", "c", Duration.ofDays(45)));
+
+        TasteProfileService.Taste whole = this.tasteProfileService.update(USER_ID, plays);
+
+        this.stored = null;
+        this.tasteProfileService.update(USER_ID, plays.subList(0, 2));
+        TasteProfileService.Taste incremental = this.tasteProfileService.update(USER_ID, plays.subList(2, 4));
+
+        for (int statistic = 0; statistic < TasteProfileService.STATISTICS; statistic++) {
+            assertThat(incremental.getMean(statistic)).isCloseTo(whole.getMean(statistic), offset(1e-4f));
+            assertThat(incremental.getStandardDeviation(statistic)).isCloseTo(whole.getStandardDeviation(statistic), offset(1e-4f));
+        }
+
+        assertThat(incremental.getTopArtists()).isEqualTo(whole.getTopArtists());
+        assertThat(incremental.getPlays()).isEqualTo(4);
+    }
+
+    @Test
+    public void topArtistsAreTheMostPlayedRecently() {
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, List.of(
+                this.play("low", "old", Duration.ZERO),
+                this.play("low", "old", Duration.ZERO),
+                this.play("low", "old", Duration.ZERO),
+                this.play("high", "new", Duration.ofDays(90)),
+                this.play("high", "new", Duration.ofDays(90)),
+                this.play("high", "last", Duration.ofDays(90))));
+
+        // old: 3 plays decayed by 3 half lives (0.375)
+        assertThat(taste.getTopArtists()).containsExactly("new", "last");
+    }
+
+    @Test
+    public void playsWithoutFeaturesOnlyDecayTheProfile() {
+        this.tasteProfileService.update(USER_ID, List.of(this.play("low", null, Duration.ZERO)));
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, List.of(this.play("unknown", "a", HALF_LIFE)));
+
+        assertThat(taste.getPlays()).isEqualTo(1);
+        assertThat(taste.getMean(TrackFeatureIndex.ENERGY)).isCloseTo(0.2f, offset(1e-6f));
+        assertThat(taste.getTopArtists()).containsExactly("a");
+        assertThat(this.stored.getWeight()).isCloseTo(0.5, offset(1e-9));
+        assertThat(this.stored.getLastPlayedAt()).isEqualTo(Timestamp.from(START.plus(HALF_LIFE)));
+    }
+
+    @Test
+    public void noPlaysKeepTheProfile() {
+        this.tasteProfileService.update(USER_ID, List.of());
+
+        verify(this.tasteProfileRepository, never()).save(any());
+    }
+
+    @Test
+    public void updateStoredFirstByAConcurrentUpdateIsFoldedAgain() {
+        List<PlayHistory> plays = List.of(this.play("low", null, Duration.ZERO), this.play("high", null, Duration.ZERO.plusMillis(1)));
+        AtomicBoolean concurrentUpdate = new AtomicBoolean(true);
+
+        when(this.tasteProfileRepository.save(any(TasteProfile.class))).thenAnswer(invocation -> {
+            if(concurrentUpdate.getAndSet(false)) {
+                // another request folds the first play and stores the profile first
+                this.tasteProfileService.update(USER_ID, plays.subList(0, 1));
+                throw new ObjectOptimisticLockingFailureException(TasteProfile.class, USER_ID);
+            }
+
+            this.stored = invocation.getArgument(0);
+            return this.stored;
+        });
+
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, plays);
+
+        // each play is folded once
+        assertThat(taste.getPlays()).isEqualTo(2);
+        assertThat(taste.getMean(TrackFeatureIndex.ENERGY)).isCloseTo(0.4f, offset(1e-6f));
+        verify(this.tasteProfileRepository, times(3)).save(any());
+    }
+
+    @Test
+    public void updateGivesUpAfterRepeatedConflicts() {
+        this.tasteProfileService.update(USER_ID, List.of(this.play("low", null, Duration.ZERO)));
+
+        // each attempt folds the play in a new copy of the stored profile, as the repository does
+        TasteProfile stored = this.stored;
+        when(this.tasteProfileRepository.findById(USER_ID)).thenAnswer(invocation -> Optional.of(this.copy(stored)));
+        when(this.tasteProfileRepository.save(any(TasteProfile.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(TasteProfile.class, USER_ID));
+
+        TasteProfileService.Taste taste = this.tasteProfileService.update(USER_ID, List.of(this.play("high", null, HALF_LIFE)));
+
+        // the stored profile, the play is folded by the next update
+        assertThat(taste.getPlays()).isEqualTo(1);
+        verify(this.tasteProfileRepository, times(4)).save(any());
+    }
+
+    private TasteProfile copy(TasteProfile tasteProfile) {
+        TasteProfile copy = new TasteProfile();
+        copy.setUserId(tasteProfile.getUserId());
+        copy.setLastPlayedAt(tasteProfile.getLastPlayedAt());
+        copy.setWeight(tasteProfile.getWeight());
+        copy.setPlays(tasteProfile.getPlays());
+        copy.setStatistics(tasteProfile.getStatistics());
+        copy.setTopArtists(tasteProfile.getTopArtists());
+        return copy;
+    }
+
+    private void track(String trackId, float energy, int popularity) {
+        float[] trackFeatures = new float[TasteProfileService.STATISTICS];
+        trackFeatures[TrackFeatureIndex.ENERGY] = energy;
+        trackFeatures[TasteProfileService.POPULARITY] = popularity;
+
+        this.features.put(trackId, trackFeatures);
+    }
+
+    private PlayHistory play(String trackId, String artistId, Duration after) {
+        return new PlayHistory(USER_ID, trackId, artistId, Timestamp.from(START.plus(after)));
+    }
+}
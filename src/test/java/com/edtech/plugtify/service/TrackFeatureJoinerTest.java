@@ -0,0 +1,63 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrackFeatureJoinerTest {
+
+    private TrackFeatureJoiner trackFeatureJoiner = new TrackFeatureJoiner();
+
+    @Test
+    public void eachTrackGetsTheFeaturesOfItsId() {
+        SpotifyTrackDTO[] tracks = { this.track("a"), this.track("b"), this.track("a") };
+        SpotifyAudioFeaturesDTO[] audioFeatures = { this.audioFeatures("b"), this.audioFeatures("a") };
+
+        SpotifyTrackDTO[] joined = this.trackFeatureJoiner.join(tracks, audioFeatures);
+
+        assertThat(joined).extracting(SpotifyTrackDTO::getId).containsExactly("a", "b", "a");
+        assertThat(joined).allMatch(track -> track.getAudio_feature().getId().equals(track.getId()));
+        assertThat(joined[0].getName()).isEqualTo("track a");
+    }
+
+    @Test
+    public void nullTracksAreDroppedAndMissingFeaturesAreNull() {
+        SpotifyTrackDTO[] tracks = { this.track("a"), null, this.track("local") };
+        SpotifyAudioFeaturesDTO[] audioFeatures = { this.audioFeatures("a"), null };
+
+        SpotifyTrackDTO[] joined = this.trackFeatureJoiner.join(tracks, audioFeatures);
+
+        assertThat(joined).extracting(SpotifyTrackDTO::getId).containsExactly("a", "local");
+        assertThat(joined[1].getAudio_feature()).isNull();
+        assertThat(this.trackFeatureJoiner.join(null, audioFeatures)).isEmpty();
+        assertThat(this.trackFeatureJoiner.join(tracks, (SpotifyAudioFeaturesDTO[]) null)).hasSize(2);
+    }
+
+    @Test
+    public void givenTracksAreNotChanged() {
+        SpotifyTrackDTO cached = this.track("a");
+
+        SpotifyTrackDTO[] joined = this.trackFeatureJoiner.join(new SpotifyTrackDTO[] { cached }, new SpotifyAudioFeaturesDTO[] { this.audioFeatures("a") });
+
+        assertThat(cached.getAudio_feature()).isNull();
+        assertThat(joined[0]).isNotSameAs(cached);
+        assertThat(joined[0].getAudio_feature()).isNotNull();
+    }
+
+    private SpotifyTrackDTO track(String id) {
+        SpotifyTrackDTO track = new SpotifyTrackDTO();
+        track.setId(id);
+        track.setName("track " + id);
+
+        return track;
+    }
+
+    private SpotifyAudioFeaturesDTO audioFeatures(String id) {
+        SpotifyAudioFeaturesDTO audioFeatures = new SpotifyAudioFeaturesDTO();
+        audioFeatures.setId(id);
+
+        return audioFeatures;
+    }
+}
@@ -0,0 +1,90 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.repository.TrackFeaturesRepository;
+import com.edtech.plugtify.service.dto.SpotifyAudioFeaturesDTO;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two stores on the same database, as two replicas storing the same tracks.
+ */
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the store commits its own transactions
+public class TrackFeatureStoreTest {
+
+    @Autowired
+    private TrackFeaturesRepository trackFeaturesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TrackFeatureStore replicaA;
+    private TrackFeatureStore replicaB;
+
+    @Before
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRecommendations().getAnn().setEnabled(false);
+
+        this.replicaA = new TrackFeatureStore(applicationProperties, this.trackFeaturesRepository, this.transactionManager);
+        this.replicaB = new TrackFeatureStore(applicationProperties, this.trackFeaturesRepository, this.transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+        this.trackFeaturesRepository.deleteAll();
+    }
+
+    @Test
+    public void trackStoredByAnotherReplicaDoesNotLoseTheOtherTracks() {
+        this.replicaB.store(new SpotifyTrackDTO[]{ this.track("shared") });
+
+        this.replicaA.store(new SpotifyTrackDTO[]{ this.track("new-1"), this.track("shared"), this.track("new-2") });
+
+        assertThat(this.trackFeaturesRepository.count()).isEqualTo(3);
+        assertThat(this.trackFeaturesRepository.existsById("new-1")).isTrue();
+        assertThat(this.trackFeaturesRepository.existsById("new-2")).isTrue();
+
+        float[] features = new float[TrackFeatureIndex.DIMENSIONS + 1];
+        assertThat(this.replicaA.getFeatures("new-2", features)).isTrue();
+        assertThat(this.replicaA.getFeatures("shared", features)).isTrue();
+    }
+
+    @Test
+    public void storedTracksAreNotSavedAgain() {
+        this.replicaA.store(new SpotifyTrackDTO[]{ this.track("a") });
+        this.trackFeaturesRepository.deleteAll();
+
+        // known by the index: skipped
+        this.replicaA.store(new SpotifyTrackDTO[]{ this.track("a") });
+
+        assertThat(this.trackFeaturesRepository.count()).isZero();
+    }
+
+    private SpotifyTrackDTO track(String id) {
+        SpotifyAudioFeaturesDTO audioFeature = new SpotifyAudioFeaturesDTO();
+        audioFeature.setId(id);
+        audioFeature.setEnergy(0.5f);
+        audioFeature.setTempo(120);
+
+        SpotifyTrackDTO track = new SpotifyTrackDTO();
+        track.setId(id);
+        track.setPopularity(50);
+        track.setAudio_feature(audioFeature);
+        return track;
+    }
+}
@@ -0,0 +1,78 @@
+package com.edtech.plugtify.service;
+
+import com.edtech.plugtify.config.ApplicationProperties;
+import com.edtech.plugtify.domain.User;
+import com.edtech.plugtify.repository.UserRepository;
+import com.edtech.plugtify.security.AuthenticationCache;
+import com.edtech.plugtify.security.TokenRevocations;
+import com.edtech.plugtify.service.dto.UserDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * The caches of a user are evicted when its account changes.
+ */
+
+public class UserServiceTest {
+
+    private static final String LOGIN = "user";
+
+    private UserRepository userRepository = mock(UserRepository.class);
+    private CurrentUserResolver currentUserResolver = mock(CurrentUserResolver.class);
+    private TokenRevocations tokenRevocations = mock(TokenRevocations.class);
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(UserRepository.USER_BY_LOGIN_CACHE, UserRepository.USER_BY_EMAIL_CACHE);
+    private AuthenticationCache authenticationCache;
+    private UserService userService;
+
+    private User user = new User();
+
+    @Before
+    public void setUp() throws Exception {
+        this.authenticationCache = new AuthenticationCache(new ApplicationProperties());
+        this.userService = new UserService(this.userRepository, mock(PasswordEncoder.class), this.cacheManager,
+                this.currentUserResolver, this.authenticationCache, this.tokenRevocations);
+
+        this.user.setId(1L);
+        this.user.setLogin(LOGIN);
+        this.user.setEmail(LOGIN + "@plugtify.com");
+        this.user.setPassword("hash");
+
+        when(this.currentUserResolver.getUser(LOGIN)).thenReturn(Optional.of(this.user));
+    }
+
+    @Test
+    public void deletedAccountIsEvictedFromTheCaches() {
+        this.authenticationCache.putVerified(LOGIN, "password", "hash");
+        this.cacheManager.getCache(UserRepository.USER_BY_LOGIN_CACHE).put(LOGIN, this.user);
+
+        this.userService.deleteUser(LOGIN);
+
+        assertThat(this.authenticationCache.isVerified(LOGIN, "password", "hash")).isFalse();
+        assertThat(this.cacheManager.getCache(UserRepository.USER_BY_LOGIN_CACHE).get(LOGIN)).isNull();
+        verify(this.currentUserResolver).evict(LOGIN);
+        verify(this.tokenRevocations).revoke(1L);
+    }
+
+    @Test
+    public void savedAccountIsEvictedFromTheCaches() {
+        // e.g. credentials cached for a previous account with the same login
+        this.authenticationCache.putVerified(LOGIN, "password", "hash");
+        this.cacheManager.getCache(UserRepository.USER_BY_EMAIL_CACHE).put(LOGIN + "@plugtify.com", this.user);
+
+        UserDTO userDTO = new UserDTO();
+        userDTO.setLogin(LOGIN);
+        userDTO.setEmail(LOGIN + "@plugtify.com");
+        this.userService.registerUser(userDTO, "password");
+
+        assertThat(this.authenticationCache.isVerified(LOGIN, "password", "hash")).isFalse();
+        assertThat(this.cacheManager.getCache(UserRepository.USER_BY_EMAIL_CACHE).get(LOGIN + "@plugtify.com")).isNull();
+    }
+}
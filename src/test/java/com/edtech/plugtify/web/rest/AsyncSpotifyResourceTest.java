@@ -0,0 +1,64 @@
+package com.edtech.plugtify.web.rest;
+
+import com.edtech.plugtify.security.ExceptionHandler;
+import com.edtech.plugtify.service.SpotifyService;
+import com.edtech.plugtify.service.dto.SpotifyTrackDTO;
+import com.edtech.plugtify.web.rest.errors.SpotifyUnavailableException;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The servlet thread returns while the Spotify calls are pending, the response is written when they complete.
+ */
+
+public class AsyncSpotifyResourceTest {
+
+    private SpotifyService spotifyService = mock(SpotifyService.class);
+
+    private MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AsyncSpotifyResource(this.spotifyService))
+            .setControllerAdvice(new ExceptionHandler())
+            .build();
+
+    @Test
+    public void responseIsWrittenWhenTheSpotifyCallsComplete() throws Exception {
+        CompletableFuture<ResponseEntity<SpotifyTrackDTO[]>> pending = new CompletableFuture<>();
+        when(this.spotifyService.getSuggestedPlaylistAsync("local", true)).thenReturn(pending);
+
+        MvcResult result = this.mockMvc.perform(get("/api/suggested-playlist").param("engine", "local").param("fresh", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        SpotifyTrackDTO track = new SpotifyTrackDTO();
+        track.setId("a");
+        pending.complete(new ResponseEntity<>(new SpotifyTrackDTO[]{ track }, HttpStatus.OK));
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("a"));
+    }
+
+    @Test
+    public void failedSpotifyCallIsHandledAsTheSyncMode() throws Exception {
+        when(this.spotifyService.getRecentlyPlayedAsync())
+                .thenReturn(CompletableFuture.failedFuture(new SpotifyUnavailableException("down")));
+
+        MvcResult result = this.mockMvc.perform(get("/api/recently-played"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+}